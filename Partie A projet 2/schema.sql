@@ -1,8 +1,74 @@
 CREATE DATABASE IF NOT EXISTS gestion_stock;
 USE gestion_stock;
 
+CREATE TABLE IF NOT EXISTS catalogues (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    nom VARCHAR(100) NOT NULL,
+    version INT NOT NULL DEFAULT 0,
+    UNIQUE KEY uk_catalogues_nom (nom)
+);
+
 CREATE TABLE IF NOT EXISTS produits (
     id INT AUTO_INCREMENT PRIMARY KEY,
     nom VARCHAR(100) NOT NULL,
-    prix DOUBLE NOT NULL
+    prix DOUBLE NOT NULL,
+    catalogue_id INT NULL,
+    version INT NOT NULL DEFAULT 0,
+    UNIQUE KEY uk_produits_nom (nom),
+    INDEX idx_produits_prix (prix),
+    FOREIGN KEY (catalogue_id) REFERENCES catalogues(id)
 );
+
+-- Migration d'une base existante : CREATE TABLE IF NOT EXISTS ne modifie pas
+-- une table créée par une version antérieure de ce script. Chaque ALTER
+-- n'est exécuté que si la colonne ou l'index manque (script rejouable).
+-- Les clés uniques échouent tant que des noms sont en double : dédoublonner
+-- d'abord (SELECT nom, COUNT(*) FROM produits GROUP BY nom HAVING COUNT(*) > 1).
+
+-- produits.catalogue_id
+SET @migration := IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'produits' AND COLUMN_NAME = 'catalogue_id') = 0,
+    'ALTER TABLE produits ADD COLUMN catalogue_id INT NULL, ADD FOREIGN KEY (catalogue_id) REFERENCES catalogues(id)', 'DO 0');
+PREPARE migration FROM @migration;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
+
+-- produits.version
+SET @migration := IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'produits' AND COLUMN_NAME = 'version') = 0,
+    'ALTER TABLE produits ADD COLUMN version INT NOT NULL DEFAULT 0', 'DO 0');
+PREPARE migration FROM @migration;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
+
+-- catalogues.version
+SET @migration := IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'catalogues' AND COLUMN_NAME = 'version') = 0,
+    'ALTER TABLE catalogues ADD COLUMN version INT NOT NULL DEFAULT 0', 'DO 0');
+PREPARE migration FROM @migration;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
+
+-- uk_produits_nom
+SET @migration := IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'produits' AND INDEX_NAME = 'uk_produits_nom') = 0,
+    'ALTER TABLE produits ADD UNIQUE KEY uk_produits_nom (nom)', 'DO 0');
+PREPARE migration FROM @migration;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
+
+-- idx_produits_prix
+SET @migration := IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'produits' AND INDEX_NAME = 'idx_produits_prix') = 0,
+    'ALTER TABLE produits ADD INDEX idx_produits_prix (prix)', 'DO 0');
+PREPARE migration FROM @migration;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
+
+-- uk_catalogues_nom
+SET @migration := IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'catalogues' AND INDEX_NAME = 'uk_catalogues_nom') = 0,
+    'ALTER TABLE catalogues ADD UNIQUE KEY uk_catalogues_nom (nom)', 'DO 0');
+PREPARE migration FROM @migration;
+EXECUTE migration;
+DEALLOCATE PREPARE migration;
@@ -1,5 +1,6 @@
 package com.examen.stock;
 
+import com.examen.stock.util.HibernateUtil;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -8,6 +9,12 @@ import javafx.stage.Stage;
 
 public class JavaFXApp extends Application {
 
+    @Override
+    public void init() {
+        // SessionFactory construite pendant le chargement de la fenêtre
+        HibernateUtil.demarrer();
+    }
+
     @Override
     public void start(Stage primaryStage) throws Exception {
         Parent root = FXMLLoader.load(getClass().getResource("/com/examen/stock/view/MainView.fxml"));
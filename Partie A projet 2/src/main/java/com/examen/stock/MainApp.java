@@ -3,6 +3,7 @@ package com.examen.stock;
 import com.examen.stock.dao.ProduitDaoImpl;
 import com.examen.stock.dao.ProduitDaoHibernate;
 import com.examen.stock.dao.CatalogueDaoHibernate;
+import com.examen.stock.dao.Page;
 import com.examen.stock.exception.StockException;
 import com.examen.stock.model.Produit;
 import com.examen.stock.model.Catalogue;
@@ -11,9 +12,14 @@ import com.examen.stock.service.CatalogueService;
 import com.examen.stock.service.GestionnaireStock;
 import com.examen.stock.service.StockSimulationService;
 import com.examen.stock.util.HibernateUtil;
+import com.examen.stock.util.StockMetrics;
+import java.util.List;
 
 public class MainApp {
     public static void main(String[] args) {
+        // Hibernate démarre en arrière-plan pendant les parties mémoire et JDBC
+        HibernateUtil.demarrer();
+
         // 1. ANCIENNE APPROCHE (Mémoire)
         System.out.println("=== 1. MODE MÉMOIRE (Ancien) ===");
         GestionnaireStock<Produit> monStock = new GestionnaireStock<>();
@@ -23,7 +29,7 @@ public class MainApp {
         // 2. ARCHITECTURE JDBC (DAO Classique)
         System.out.println("\n=== 2. ARCHITECTURE JDBC (DAO Classique) ===");
         ProduitService serviceJdbc = new ProduitService(new ProduitDaoImpl());
-        serviceJdbc.enregistrerProduit(new Produit("Micro-Casque", 45.0));
+        serviceJdbc.enregistrerOuMettreAJour(new Produit("Micro-Casque", 45.0));
         serviceJdbc.recupererTout().forEach(System.out::println);
 
         // 3. MAPPING OBJET RELATIONNEL (Hibernate XML)
@@ -34,12 +40,19 @@ public class MainApp {
             // Test CRUD via Hibernate
             serviceHibernate.enregistrerProduit(new Produit("Clavier RGB 2025", 120.0));
             serviceHibernate.modifierPrix("Clavier RGB 2025", 115.0);
+            // Remise de 5 % en lecture-calcul-écriture, rejouée en cas de conflit de version
+            serviceHibernate.ajusterPrix("Clavier RGB 2025", prix -> Math.round(prix * 95) / 100.0);
 
             System.out.println("Données via Hibernate :");
             serviceHibernate.recupererTout().forEach(p -> System.out.println(p));
 
             // Statistiques riches (Streams)
             serviceHibernate.afficherStatistiques();
+            // Liste des noms : appel séparé, borné à la première page
+            Page<String> noms = serviceHibernate.recupererNoms(null, 20);
+            System.out.println("Catalogue Service : " + String.join(" | ", noms.getElements())
+                    + (noms.hasNext() ? " | ..." : ""));
+            System.out.print(StockMetrics.rapport());
 
             // 4. TEST RELATION ONE-TO-MANY (Catalogue via DAO)
             System.out.println("\n=== 4. TEST RELATION ONE-TO-MANY (Catalogue via DAO) ===");
@@ -50,6 +63,8 @@ public class MainApp {
             cat.ajouterProduit(new Produit("Bureau Assis-Debout", 450.0));
 
             catService.creerCatalogue(cat); // Persiste via le service
+            // Lecture + ajout dans une seule transaction (unité de travail)
+            catService.ajouterProduits("Matériel Bureau 2026", List.of(new Produit("Lampe de Bureau", 35.0)));
             catService.afficherTousLesCatalogues();
 
             // 5. TEST PROGRAMMATION CONCURRENTE (Threads)
@@ -0,0 +1,174 @@
+package com.examen.stock.dao;
+
+import com.examen.stock.exception.StockException;
+import com.examen.stock.repository.Repository;
+import com.examen.stock.util.ExecuteurDao;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Façade asynchrone d'un {@link IDao} : chaque appel part sur un
+ * {@link ExecuteurDao} et retourne un CompletableFuture. Les recherches
+ * indépendantes se chevauchent au lieu de s'enchaîner, et le thread JavaFX
+ * n'est plus bloqué. Annuler le futur, ou dépasser le délai, interrompt
+ * l'appel en cours (l'attente d'une connexion du pool est interruptible).
+ */
+public class AsyncDao<T> {
+    private static final Duration DELAI_DEFAUT = Duration.ofMillis(Long.getLong("stock.async.delaiMs", 30_000L));
+
+    private final IDao<T> dao;
+    private final Executor executeur;
+    private final Duration delai;
+
+    public AsyncDao(IDao<T> dao) {
+        this(dao, ExecuteurDao.partage(), DELAI_DEFAUT);
+    }
+
+    public AsyncDao(IDao<T> dao, Executor executeur, Duration delai) {
+        this.dao = dao;
+        this.executeur = executeur;
+        this.delai = delai;
+    }
+
+    /** Façade asynchrone d'un Repository (mêmes opérations sous leurs noms DAO). */
+    public static <T> AsyncDao<T> pour(Repository<T> repository) {
+        return new AsyncDao<>(new RepositoryCommeDao<>(repository));
+    }
+
+    /** Même façade avec un autre délai, pour un appel particulier. */
+    public AsyncDao<T> avecDelai(Duration autreDelai) {
+        return new AsyncDao<>(dao, executeur, autreDelai);
+    }
+
+    public CompletableFuture<Void> create(T element) {
+        return soumettre(() -> {
+            dao.create(element);
+            return null;
+        });
+    }
+
+    public CompletableFuture<RapportBatch> createAll(Collection<T> elements) {
+        return soumettre(() -> dao.createAll(elements));
+    }
+
+    public CompletableFuture<List<T>> readAll() {
+        return soumettre(dao::readAll);
+    }
+
+    public CompletableFuture<Page<T>> readPage(String apresNom, int limite) {
+        return soumettre(() -> dao.readPage(apresNom, limite));
+    }
+
+    public CompletableFuture<T> readByName(String nom) {
+        return soumettre(() -> dao.readByName(nom));
+    }
+
+    public CompletableFuture<Map<String, T>> readByNames(Collection<String> noms) {
+        return soumettre(() -> dao.readByNames(noms));
+    }
+
+    public CompletableFuture<Void> update(T element) {
+        return soumettre(() -> {
+            dao.update(element);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> delete(String nom) {
+        return soumettre(() -> {
+            dao.delete(nom);
+            return null;
+        });
+    }
+
+    /**
+     * Exécute une opération quelconque (par exemple propre à un DAO
+     * spécialisé) sur le même exécuteur, avec le même délai.
+     */
+    public <R> CompletableFuture<R> executer(Callable<R> appel) {
+        return soumettre(appel);
+    }
+
+    /**
+     * Le futur retourné échoue avec TimeoutException après le délai ; en cas
+     * d'annulation ou de dépassement, la tâche sous-jacente est interrompue.
+     */
+    private <R> CompletableFuture<R> soumettre(Callable<R> appel) {
+        CompletableFuture<R> resultat = new CompletableFuture<>();
+        FutureTask<Void> tache = new FutureTask<>(() -> {
+            try {
+                resultat.complete(appel.call());
+            } catch (Throwable e) {
+                resultat.completeExceptionally(e);
+            }
+        }, null);
+        try {
+            executeur.execute(tache);
+        } catch (RejectedExecutionException e) {
+            resultat.completeExceptionally(e);
+            return resultat;
+        }
+        resultat.orTimeout(delai.toMillis(), TimeUnit.MILLISECONDS);
+        resultat.whenComplete((r, e) -> {
+            if (e != null)
+                tache.cancel(true);
+        });
+        return resultat;
+    }
+
+    private static final class RepositoryCommeDao<T> implements IDao<T> {
+        private final Repository<T> repository;
+
+        RepositoryCommeDao(Repository<T> repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public void create(T element) {
+            repository.ajouter(element);
+        }
+
+        @Override
+        public RapportBatch createAll(Collection<T> elements) {
+            return repository.ajouterTous(elements);
+        }
+
+        @Override
+        public List<T> readAll() {
+            return repository.listerTout();
+        }
+
+        @Override
+        public Page<T> readPage(String apresNom, int limite) {
+            return repository.listerPage(apresNom, limite);
+        }
+
+        @Override
+        public T readByName(String nom) throws StockException {
+            return repository.trouverParNom(nom);
+        }
+
+        @Override
+        public Map<String, T> readByNames(Collection<String> noms) {
+            return repository.trouverParNoms(noms);
+        }
+
+        @Override
+        public void update(T element) throws StockException {
+            repository.mettreAJour(element);
+        }
+
+        @Override
+        public void delete(String nom) throws StockException {
+            repository.supprimer(nom);
+        }
+    }
+}
@@ -1,18 +1,44 @@
 package com.examen.stock.dao;
 
+import com.examen.stock.exception.ConflitVersionException;
 import com.examen.stock.exception.StockException;
 import com.examen.stock.model.Catalogue;
-import com.examen.stock.util.HibernateUtil;
+import com.examen.stock.model.CatalogueResume;
+import org.hibernate.Cache;
+import org.hibernate.Hibernate;
 import org.hibernate.Session;
 import org.hibernate.Transaction;
+import org.hibernate.query.Query;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import java.util.Collection;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
-public class CatalogueDaoHibernate implements IDao<Catalogue> {
+public class CatalogueDaoHibernate implements ICatalogueDao {
+    private static final int TAILLE_LOT_DEFAUT = 50;
+    private static final int TAILLE_IN = 500;
+    // Rôle de la collection produits, pour l'éviction de sa région de cache
+    static final String ROLE_PRODUITS = Catalogue.class.getName() + ".produits";
+
+    private final int tailleLot;
+
+    public CatalogueDaoHibernate() {
+        this(TAILLE_LOT_DEFAUT);
+    }
+
+    public CatalogueDaoHibernate(int tailleLot) {
+        if (tailleLot < 1)
+            throw new IllegalArgumentException("Taille de lot invalide : " + tailleLot);
+        this.tailleLot = tailleLot;
+    }
 
     @Override
-    public void create(Catalogue catalogue) {
+    public void create(Catalogue catalogue) throws StockException {
         Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = UnitOfWork.ouvrirSession()) {
             transaction = session.beginTransaction();
             session.persist(catalogue);
             transaction.commit();
@@ -21,46 +47,137 @@ public class CatalogueDaoHibernate implements IDao<Catalogue> {
             if (transaction != null)
                 transaction.rollback();
             System.err.println("Erreur Hibernate Catalogue (insertion) : " + e.getMessage());
+            throw new StockException("Erreur lors de l'insertion du catalogue.");
         }
     }
 
+    /** Un savepoint par lot : voir {@link ProduitDaoHibernate#persisterParLots}. */
+    @Override
+    public RapportBatch createAll(Collection<Catalogue> catalogues) {
+        RapportBatch rapport = new RapportBatch();
+        try {
+            ProduitDaoHibernate.persisterParLots(catalogues, tailleLot, rapport);
+        } catch (StockException | RuntimeException e) {
+            rapport.annuler(0, catalogues.size(), e.getMessage());
+        }
+        System.out.println("Hibernate: Insertion par lots (catalogues) -> " + rapport);
+        return rapport;
+    }
+
+    /** Catalogues et produits en une requête (jointure fetch), au lieu d'une requête par catalogue. */
     @Override
     public List<Catalogue> readAll() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.createQuery("from Catalogue", Catalogue.class).list();
+        try (Session session = UnitOfWork.ouvrirSession()) {
+            return session.createQuery("select c from Catalogue c left join fetch c.produits order by c.nom",
+                    Catalogue.class).list();
         } catch (Exception e) {
             System.err.println("Erreur Hibernate Catalogue (lecture) : " + e.getMessage());
             return List.of();
         }
     }
 
+    @Override
+    public Page<Catalogue> readPage(String apresNom, int limite) {
+        try (Session session = UnitOfWork.ouvrirSession()) {
+            Query<Catalogue> requete = apresNom == null
+                    ? session.createQuery("from Catalogue c order by c.nom", Catalogue.class)
+                    : session.createQuery("from Catalogue c where c.nom > :apres order by c.nom", Catalogue.class)
+                            .setParameter("apres", apresNom);
+            List<Catalogue> lus = requete.setMaxResults(limite + 1).list();
+            // Pas de jointure fetch avec une limite (pagination en mémoire) : les
+            // collections sont initialisées par lots (batch-size du mapping)
+            initialiserProduits(lus);
+            return Page.depuis(lus, limite, Catalogue::getNom);
+        } catch (Exception e) {
+            System.err.println("Erreur Hibernate Catalogue (page) : " + e.getMessage());
+            return new Page<>(List.of(), false, null);
+        }
+    }
+
     @Override
     public Catalogue readByName(String nom) throws StockException {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            // Ici, on cherche par le nom. Dans le mapping XML, l'ID est 'id' (native).
-            // On utilise donc une requête HQL.
-            Catalogue c = session.createQuery("from Catalogue where nom = :nom", Catalogue.class)
+        try (Session session = UnitOfWork.ouvrirSession()) {
+            // Le nom est l'identifiant naturel (mapping XML) : résolu via le cache
+            // nom -> id puis le cache d'entités, sans requête quand les deux répondent.
+            // Produits non chargés : readDetail() les ramène par jointure si besoin
+            Catalogue c = session.bySimpleNaturalId(Catalogue.class).load(nom);
+            if (c != null)
+                return c;
+        } catch (Exception e) {
+            System.err.println("Erreur Hibernate Catalogue (recherche) : " + e.getMessage());
+        }
+        throw new StockException("Catalogue '" + nom + "' introuvable.");
+    }
+
+    @Override
+    public List<CatalogueResume> readResumes() {
+        try (Session session = UnitOfWork.ouvrirSession()) {
+            return session.createQuery("select new com.examen.stock.model.CatalogueResume(c.id, c.nom, count(p)) "
+                    + "from Catalogue c left join c.produits p group by c.id, c.nom order by c.nom",
+                    CatalogueResume.class).list();
+        } catch (Exception e) {
+            System.err.println("Erreur Hibernate Catalogue (résumés) : " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    @Override
+    public Catalogue readDetail(String nom) throws StockException {
+        try (Session session = UnitOfWork.ouvrirSession()) {
+            Catalogue c = session.createQuery("select c from Catalogue c left join fetch c.produits where c.nom = :nom",
+                    Catalogue.class)
                     .setParameter("nom", nom)
                     .uniqueResult();
             if (c != null)
                 return c;
         } catch (Exception e) {
-            System.err.println("Erreur Hibernate Catalogue (recherche) : " + e.getMessage());
+            System.err.println("Erreur Hibernate Catalogue (détail) : " + e.getMessage());
         }
         throw new StockException("Catalogue '" + nom + "' introuvable.");
     }
 
+    /**
+     * Initialise les produits des catalogues avant fermeture de la session ;
+     * grâce au batch-size, une requête couvre jusqu'à 50 catalogues.
+     */
+    private static void initialiserProduits(Collection<Catalogue> catalogues) {
+        for (Catalogue c : catalogues)
+            Hibernate.initialize(c.getProduits());
+    }
+
+    @Override
+    public Map<String, Catalogue> readByNames(Collection<String> noms) {
+        Map<String, Catalogue> trouves = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        try (Session session = UnitOfWork.ouvrirSession()) {
+            List<Catalogue> catalogues = session.byMultipleNaturalId(Catalogue.class)
+                    .withBatchSize(TAILLE_IN)
+                    .multiLoad(new ArrayList<Object>(noms));
+            for (Catalogue c : catalogues) {
+                if (c != null)
+                    trouves.put(c.getNom(), c);
+            }
+            initialiserProduits(trouves.values());
+        } catch (Exception e) {
+            System.err.println("Erreur Hibernate Catalogue (recherche groupée) : " + e.getMessage());
+        }
+        return trouves;
+    }
+
     @Override
     public void update(Catalogue catalogue) throws StockException {
         Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = UnitOfWork.ouvrirSession()) {
             transaction = session.beginTransaction();
-            session.merge(catalogue);
+            Catalogue gere = session.merge(catalogue);
+            session.flush();
             transaction.commit();
+            catalogue.setVersion(gere.getVersion());
             System.out.println("Hibernate: Catalogue mis à jour -> " + catalogue.getNom());
         } catch (Exception e) {
             if (transaction != null)
                 transaction.rollback();
+            if (ProduitDaoHibernate.estConflitVersion(e))
+                throw new ConflitVersionException(catalogue.getNom(), catalogue.getVersion());
             throw new StockException("Erreur lors de la mise à jour du catalogue.");
         }
     }
@@ -68,18 +185,79 @@ public class CatalogueDaoHibernate implements IDao<Catalogue> {
     @Override
     public void delete(String nom) throws StockException {
         Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = UnitOfWork.ouvrirSession()) {
             transaction = session.beginTransaction();
-            Catalogue c = readByName(nom);
-            if (c != null) {
-                session.remove(c);
-                System.out.println("Hibernate: Catalogue supprimé -> " + nom);
-            }
+            // Chargé dans la session qui le supprime : l'entité est gérée, pas détachée
+            Catalogue c = session.bySimpleNaturalId(Catalogue.class).load(nom);
+            if (c == null)
+                throw new StockException("Suppression impossible : catalogue " + nom + " inconnu.");
+            session.remove(c);
             transaction.commit();
+            System.out.println("Hibernate: Catalogue supprimé -> " + nom);
         } catch (Exception e) {
             if (transaction != null)
                 transaction.rollback();
             throw new StockException("Erreur lors de la suppression du catalogue.");
         }
     }
+
+    /**
+     * Le cascade all-delete-orphan du mapping chargerait chaque produit pour
+     * le supprimer ligne à ligne : ici deux DELETE HQL suffisent. Hibernate
+     * invalide les régions touchées par les requêtes en masse ; les entrées
+     * du catalogue (entité, nom, collection) sont en plus évincées ici.
+     */
+    @Override
+    public int deleteEnMasse(String nom) throws StockException {
+        Transaction transaction = null;
+        long debut = System.nanoTime();
+        try (Session session = UnitOfWork.ouvrirSession()) {
+            transaction = session.beginTransaction();
+            Integer id = session.createQuery("select c.id from Catalogue c where c.nom = :nom", Integer.class)
+                    .setParameter("nom", nom)
+                    .uniqueResult();
+            if (id == null)
+                throw new StockException("Suppression impossible : catalogue " + nom + " inconnu.");
+            int produits = session.createMutationQuery("delete from Produit p where p.catalogue.id = :id")
+                    .setParameter("id", id)
+                    .executeUpdate();
+            session.createMutationQuery("delete from Catalogue c where c.id = :id")
+                    .setParameter("id", id)
+                    .executeUpdate();
+            // Dans une unité de travail, commit() ne valide rien : l'éviction
+            // attend la fin réelle de la transaction
+            evincerApresCommit(transaction, session.getSessionFactory().getCache(), id);
+            transaction.commit();
+            System.out.println("Hibernate: Catalogue supprimé en masse -> " + nom + " (" + produits
+                    + " produits, " + (System.nanoTime() - debut) / 1_000_000 + " ms)");
+            return produits;
+        } catch (StockException e) {
+            if (transaction != null)
+                transaction.rollback();
+            throw e;
+        } catch (Exception e) {
+            if (transaction != null)
+                transaction.rollback();
+            System.err.println("Erreur Hibernate Catalogue (suppression en masse) : " + e.getMessage());
+            throw new StockException("Erreur lors de la suppression en masse du catalogue.");
+        }
+    }
+
+    /** Vide le cache du catalogue supprimé une fois la transaction validée (rien en cas d'annulation). */
+    private static void evincerApresCommit(Transaction transaction, Cache cache, Integer id) {
+        transaction.registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int statut) {
+                if (statut != Status.STATUS_COMMITTED)
+                    return;
+                cache.evictEntityData(Catalogue.class, id);
+                cache.evictCollectionData(ROLE_PRODUITS, id);
+                cache.evictNaturalIdData(Catalogue.class);
+            }
+        });
+    }
 }
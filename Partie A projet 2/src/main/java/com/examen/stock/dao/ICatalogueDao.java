@@ -0,0 +1,26 @@
+package com.examen.stock.dao;
+
+import com.examen.stock.exception.StockException;
+import com.examen.stock.model.Catalogue;
+import com.examen.stock.model.CatalogueResume;
+import java.util.List;
+
+/**
+ * Plans de lecture propres aux catalogues : résumé pour les listes, détail
+ * (catalogue et produits) pour un catalogue donné.
+ */
+public interface ICatalogueDao extends IDao<Catalogue> {
+
+    /** Identifiant, nom et nombre de produits de chaque catalogue, en une seule requête. */
+    List<CatalogueResume> readResumes();
+
+    /** Le catalogue et ses produits, chargés ensemble par une jointure. */
+    Catalogue readDetail(String nom) throws StockException;
+
+    /**
+     * Supprime le catalogue et tous ses produits par deux DELETE ensemblistes
+     * (produits par catalogue_id, puis le catalogue) dans une transaction,
+     * sans charger les entités. Retourne le nombre de produits supprimés.
+     */
+    int deleteEnMasse(String nom) throws StockException;
+}
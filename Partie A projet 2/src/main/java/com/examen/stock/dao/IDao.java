@@ -1,15 +1,47 @@
 package com.examen.stock.dao;
 
 import com.examen.stock.exception.StockException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public interface IDao<T> {
-    void create(T element);
+    void create(T element) throws StockException;
+
+    /** Insère tous les éléments dans une seule transaction, lot par lot. */
+    RapportBatch createAll(Collection<T> elements);
 
     List<T> readAll();
 
+    /**
+     * Parcourt tous les éléments sans les charger en mémoire d'un bloc.
+     * Le flux retient des ressources (connexion, curseur) : il doit être
+     * fermé, typiquement par un try-with-resources.
+     */
+    default Stream<T> streamAll() {
+        return readAll().stream();
+    }
+
+    /**
+     * Page d'au plus limite éléments triés par nom, strictement après
+     * apresNom (null pour la première page).
+     */
+    Page<T> readPage(String apresNom, int limite);
+
     T readByName(String nom) throws StockException;
 
+    /**
+     * Recherche groupée : renvoie les éléments trouvés indexés par nom (sans
+     * distinction de casse). Les noms absents de la table ne lèvent pas
+     * d'exception, ils sont simplement absents du résultat.
+     */
+    Map<String, T> readByNames(Collection<String> noms);
+
+    /**
+     * Écrit l'élément s'il est encore à la version lue ; sinon lève
+     * {@link com.examen.stock.exception.ConflitVersionException}.
+     */
     void update(T element) throws StockException;
 
     void delete(String nom) throws StockException;
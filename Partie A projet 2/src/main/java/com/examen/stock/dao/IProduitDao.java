@@ -0,0 +1,70 @@
+package com.examen.stock.dao;
+
+import com.examen.stock.exception.StockException;
+import com.examen.stock.model.Produit;
+import com.examen.stock.model.ProduitResume;
+import com.examen.stock.model.StockStatistics;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Opérations propres aux produits, en plus du CRUD générique de {@link IDao}.
+ */
+public interface IProduitDao extends IDao<Produit> {
+
+    /** Insère le produit, ou met à jour le prix du produit de même nom. */
+    default RapportBatch saveOrUpdate(Produit produit) {
+        return upsertAll(List.of(produit));
+    }
+
+    /**
+     * Insertion ou mise à jour par lots : le rapport distingue les lignes
+     * insérées des lignes mises à jour.
+     */
+    RapportBatch upsertAll(Collection<Produit> produits);
+
+    /**
+     * Chargement massif (imports nocturnes) : la source est parcourue sans
+     * être matérialisée et les lignes sont validées par tranches ; une
+     * tranche en échec est annulée seule. Le rapport donne durée et débit.
+     * L'import a sa propre transaction, hors unité de travail.
+     */
+    RapportBatch importer(Iterable<Produit> produits);
+
+    /**
+     * Change le prix en une seule requête UPDATE, sans relecture préalable ni
+     * contrôle de version (la version est tout de même incrémentée).
+     */
+    void modifierPrix(String nom, double nouveauPrix) throws StockException;
+
+    /**
+     * Compare-and-set : le prix n'est modifié que s'il vaut encore
+     * prixAttendu. Retourne false si un autre écrivain est passé avant.
+     */
+    boolean modifierPrixSi(String nom, double prixAttendu, double nouveauPrix) throws StockException;
+
+    /** Applique +pourcentage % à tous les produits du catalogue, en un UPDATE ensembliste. */
+    int reevaluerPrixCatalogue(String nomCatalogue, double pourcentage) throws StockException;
+
+    /** Applique +pourcentage % aux produits dont le prix est dans [min, max]. */
+    int reevaluerPrixEntre(double min, double max, double pourcentage) throws StockException;
+
+    /**
+     * Page de projections (nom, prix, catalogue) triées par nom, strictement
+     * après apresNom : aucune entité n'est chargée ni suivie.
+     */
+    Page<ProduitResume> readResumes(String apresNom, int limite);
+
+    /** Page de noms seuls, triés, strictement après apresNom. */
+    Page<String> readNoms(String apresNom, int limite);
+
+    /** Agrégats de prix calculés par la base : une seule ligne transférée. */
+    StockStatistics statistiques();
+
+    /** Facteur multiplicatif d'une variation en pourcentage (5 -> 1.05). */
+    static double facteur(double pourcentage) {
+        if (pourcentage <= -100)
+            throw new IllegalArgumentException("Variation de prix invalide : " + pourcentage + " %");
+        return 1 + pourcentage / 100;
+    }
+}
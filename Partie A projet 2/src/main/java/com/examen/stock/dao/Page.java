@@ -0,0 +1,50 @@
+package com.examen.stock.dao;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page de résultats d'une pagination par clé (keyset) sur le nom : la page
+ * suivante se demande avec {@link #getCurseurSuivant()}, sans OFFSET.
+ */
+public class Page<T> {
+    private final List<T> elements;
+    private final boolean aSuivante;
+    private final String curseurSuivant;
+
+    public Page(List<T> elements, boolean aSuivante, String curseurSuivant) {
+        this.elements = Collections.unmodifiableList(elements);
+        this.aSuivante = aSuivante;
+        this.curseurSuivant = curseurSuivant;
+    }
+
+    /**
+     * Construit une page à partir de lignes lues avec une limite de
+     * limite + 1 : la ligne en trop indique qu'une page suivante existe.
+     */
+    public static <T> Page<T> depuis(List<T> lues, int limite, Function<T, String> nom) {
+        boolean suivante = lues.size() > limite;
+        List<T> elements = suivante ? lues.subList(0, limite) : lues;
+        String curseur = elements.isEmpty() ? null : nom.apply(elements.get(elements.size() - 1));
+        return new Page<>(elements, suivante, curseur);
+    }
+
+    public List<T> getElements() {
+        return elements;
+    }
+
+    public boolean hasNext() {
+        return aSuivante;
+    }
+
+    /** Nom du dernier élément de la page, à passer comme apresNom pour la suite. */
+    public String getCurseurSuivant() {
+        return curseurSuivant;
+    }
+
+    @Override
+    public String toString() {
+        return "Page{taille=" + elements.size() + ", suivante=" + aSuivante + ", curseur='" + curseurSuivant + "'}";
+    }
+}
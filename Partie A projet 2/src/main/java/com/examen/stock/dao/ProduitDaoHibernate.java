@@ -1,18 +1,73 @@
 package com.examen.stock.dao;
 
+import com.examen.stock.exception.ConflitVersionException;
 import com.examen.stock.exception.StockException;
 import com.examen.stock.model.Produit;
+import com.examen.stock.model.ProduitResume;
+import com.examen.stock.model.StockStatistics;
 import com.examen.stock.util.HibernateUtil;
+import org.hibernate.Cache;
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StaleStateException;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
+import org.hibernate.query.MutationQuery;
+import org.hibernate.query.Query;
+import jakarta.persistence.OptimisticLockException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class ProduitDaoHibernate implements IDao<Produit> {
+public class ProduitDaoHibernate implements IProduitDao {
+    private static final int TAILLE_LOT_DEFAUT = 50;
+    private static final int TAILLE_FETCH_DEFAUT = 1000;
+    // Import massif : INSERT envoyés par lots de TAILLE_LOT_IMPORT, validés par tranches
+    private static final int TAILLE_LOT_IMPORT = 1000;
+    private static final int TAILLE_TRANCHE_IMPORT = Integer.getInteger("stock.import.tranche", 10_000);
+    private static final int TAILLE_IN = 500;
+    // Région du cache de requêtes (ehcache.xml), invalidée à chaque écriture sur produits
+    private static final String REGION_REQUETES = "requetes-produits";
+
+    private final int tailleLot;
+    private final int tailleFetch;
+
+    public ProduitDaoHibernate() {
+        this(TAILLE_LOT_DEFAUT, TAILLE_FETCH_DEFAUT);
+    }
+
+    public ProduitDaoHibernate(int tailleLot) {
+        this(tailleLot, TAILLE_FETCH_DEFAUT);
+    }
+
+    public ProduitDaoHibernate(int tailleLot, int tailleFetch) {
+        if (tailleLot < 1)
+            throw new IllegalArgumentException("Taille de lot invalide : " + tailleLot);
+        if (tailleFetch < 1)
+            throw new IllegalArgumentException("Taille de fetch invalide : " + tailleFetch);
+        this.tailleLot = tailleLot;
+        this.tailleFetch = tailleFetch;
+    }
 
     @Override
-    public void create(Produit produit) {
+    public void create(Produit produit) throws StockException {
         Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = UnitOfWork.ouvrirSession()) {
             transaction = session.beginTransaction();
             session.persist(produit);
             transaction.commit();
@@ -21,22 +76,300 @@ public class ProduitDaoHibernate implements IDao<Produit> {
             if (transaction != null)
                 transaction.rollback();
             System.err.println("Erreur Hibernate (insertion) : " + e.getMessage());
+            throw new StockException("Erreur lors de l'insertion Hibernate.");
+        }
+    }
+
+    @Override
+    public RapportBatch createAll(Collection<Produit> produits) {
+        RapportBatch rapport = new RapportBatch();
+        try {
+            persisterParLots(produits, tailleLot, rapport);
+        } catch (StockException | RuntimeException e) {
+            rapport.annuler(0, produits.size(), e.getMessage());
+        }
+        System.out.println("Hibernate: Insertion par lots -> " + rapport);
+        return rapport;
+    }
+
+    /**
+     * Persiste les éléments par lots de tailleLot dans une seule transaction
+     * (celle de l'unité de travail courante, ou une unité ouverte pour
+     * l'appel), chaque lot protégé par un savepoint comme dans createAll
+     * JDBC : un lot en échec est annulé et signalé, les autres sont validés.
+     *
+     * Chaque lot a sa propre session sur la connexion de l'unité : une
+     * session Hibernate ne se remet pas d'une exception (sa transaction est
+     * marquée rollback-only), elle est donc abandonnée avec son lot. La
+     * session partagée de l'unité n'est ni vidée ni reconfigurée.
+     */
+    static <T> void persisterParLots(Collection<T> elements, int tailleLot, RapportBatch rapport)
+            throws StockException {
+        List<T> liste = new ArrayList<>(elements);
+        UnitOfWork.executer(() -> {
+            try (Connection connexion = UnitOfWork.ouvrirConnexion()) {
+                for (int debut = 0, indexLot = 0; debut < liste.size(); debut += tailleLot, indexLot++) {
+                    List<T> lot = liste.subList(debut, Math.min(debut + tailleLot, liste.size()));
+                    Savepoint debutLot = connexion.setSavepoint();
+                    Session session = HibernateUtil.getSessionFactory().withOptions().connection(connexion)
+                            .openSession();
+                    try {
+                        session.setJdbcBatchSize(tailleLot);
+                        // Rien dans le cache de second niveau avant la validation de l'unité
+                        session.setCacheMode(CacheMode.IGNORE);
+                        Transaction transaction = session.beginTransaction();
+                        for (T element : lot)
+                            session.persist(element);
+                        session.flush();
+                        connexion.releaseSavepoint(debutLot);
+                        transaction.commit(); // sans effet sur la connexion de l'unité
+                        rapport.ajouterInserees(lot.size());
+                    } catch (RuntimeException e) {
+                        connexion.rollback(debutLot);
+                        rapport.ajouterEchec(indexLot, lot.size(), e.getMessage());
+                    } finally {
+                        session.close();
+                    }
+                }
+            } catch (SQLException e) {
+                throw new StockException("Insertion par lots impossible : " + e.getMessage());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Import massif par StatelessSession : ni contexte de persistance ni
+     * vérification des modifications, chaque insert part dans le lot JDBC
+     * de la session (une seule table, donc déjà ordonné). Validation toutes
+     * les TAILLE_TRANCHE_IMPORT lignes ; une tranche en échec est annulée
+     * et signalée, l'import continue avec la suivante.
+     */
+    @Override
+    public RapportBatch importer(Iterable<Produit> produits) {
+        RapportBatch rapport = new RapportBatch();
+        long debut = System.nanoTime();
+        int indexTranche = 0;
+        int dansTranche = 0;
+        try (StatelessSession session = HibernateUtil.getSessionFactory().openStatelessSession()) {
+            session.setJdbcBatchSize(TAILLE_LOT_IMPORT);
+            Transaction transaction = session.beginTransaction();
+            for (Produit produit : produits) {
+                // Compté avant l'insertion : une tranche en échec inclut la ligne fautive
+                dansTranche++;
+                try {
+                    session.insert(produit);
+                    if (dansTranche == TAILLE_TRANCHE_IMPORT) {
+                        transaction.commit();
+                        rapport.ajouterInserees(dansTranche);
+                        indexTranche++;
+                        dansTranche = 0;
+                        transaction = session.beginTransaction();
+                    }
+                } catch (RuntimeException e) {
+                    transaction.rollback();
+                    rapport.ajouterEchec(indexTranche++, dansTranche, e.getMessage());
+                    dansTranche = 0;
+                    transaction = session.beginTransaction();
+                }
+            }
+            try {
+                transaction.commit();
+                rapport.ajouterInserees(dansTranche);
+            } catch (RuntimeException e) {
+                transaction.rollback();
+                rapport.ajouterEchec(indexTranche, dansTranche, e.getMessage());
+            }
+        } catch (Exception e) {
+            rapport.ajouterEchec(indexTranche, dansTranche, e.getMessage());
+        }
+        rapport.chronometrer(debut);
+        System.out.println("Hibernate: Import -> " + rapport);
+        return rapport;
+    }
+
+    /**
+     * Hibernate 6.2 n'a pas d'upsert natif : pour chaque lot, les produits
+     * existants sont chargés en une requête IN (multiLoad), modifiés sur place
+     * ou persistés, puis le lot est envoyé en batch JDBC au flush. Dans une
+     * unité de travail la session est celle de l'appelant : elle n'est pas
+     * vidée entre les lots et sa taille de lot JDBC est rétablie à la fin.
+     */
+    @Override
+    public RapportBatch upsertAll(Collection<Produit> produits) {
+        RapportBatch rapport = new RapportBatch();
+        List<Produit> liste = new ArrayList<>(produits);
+        boolean partagee = UnitOfWork.estActive();
+        Transaction transaction = null;
+        int indexLot = 0;
+        try (Session session = UnitOfWork.ouvrirSession()) {
+            Integer tailleAvant = session.getJdbcBatchSize();
+            session.setJdbcBatchSize(tailleLot);
+            try {
+                transaction = session.beginTransaction();
+                for (int debut = 0; debut < liste.size(); debut += tailleLot, indexLot++) {
+                    List<Produit> lot = liste.subList(debut, Math.min(debut + tailleLot, liste.size()));
+                    Map<String, Produit> geres = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                    for (Produit existant : session.byMultipleIds(Produit.class)
+                            .withBatchSize(TAILLE_IN)
+                            .multiLoad(lot.stream().map(Produit::getNom).toList())) {
+                        if (existant != null)
+                            geres.put(existant.getNom(), existant);
+                    }
+                    int misesAJour = 0;
+                    for (Produit p : lot) {
+                        Produit gere = geres.get(p.getNom());
+                        if (gere != null) {
+                            gere.setPrix(p.getPrix());
+                            misesAJour++;
+                        } else {
+                            Produit nouveau = new Produit(p.getNom(), p.getPrix());
+                            session.persist(nouveau);
+                            geres.put(nouveau.getNom(), nouveau);
+                        }
+                    }
+                    session.flush();
+                    if (!partagee)
+                        session.clear();
+                    rapport.ajouterMisesAJour(misesAJour);
+                    rapport.ajouterInserees(lot.size() - misesAJour);
+                }
+                transaction.commit();
+            } finally {
+                session.setJdbcBatchSize(tailleAvant);
+            }
+        } catch (Exception e) {
+            if (transaction != null)
+                transaction.rollback();
+            rapport.annuler(indexLot, 0, e.getMessage());
         }
+        System.out.println("Hibernate: Upsert par lots -> " + rapport);
+        return rapport;
     }
 
     @Override
     public List<Produit> readAll() {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
-            return session.createQuery("from Produit", Produit.class).list();
+        try (Session session = UnitOfWork.ouvrirSession()) {
+            return session.createQuery("from Produit", Produit.class)
+                    .setCacheable(true)
+                    .setCacheRegion(REGION_REQUETES)
+                    .list();
         } catch (Exception e) {
             System.err.println("Erreur Hibernate (lecture) : " + e.getMessage());
             return List.of();
         }
     }
 
+    /**
+     * Lecture en flux via ScrollableResults (FORWARD_ONLY) : la session est
+     * vidée toutes les tailleFetch lignes pour que le cache de premier niveau
+     * ne grossisse pas. Session et curseur sont fermés avec le flux. Le flux
+     * a toujours sa propre session (lecture seule), hors unité de travail.
+     */
+    @Override
+    public Stream<Produit> streamAll() {
+        Session session = HibernateUtil.getSessionFactory().openSession();
+        ScrollableResults<Produit> curseur;
+        try {
+            session.setDefaultReadOnly(true);
+            curseur = session.createQuery("from Produit", Produit.class)
+                    .setReadOnly(true)
+                    .setFetchSize(tailleFetch)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+        } catch (Exception e) {
+            session.close();
+            System.err.println("Erreur Hibernate (lecture en flux) : " + e.getMessage());
+            return Stream.empty();
+        }
+
+        Spliterator<Produit> lignes = new Spliterators.AbstractSpliterator<Produit>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private int lues = 0;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Produit> action) {
+                if (!curseur.next())
+                    return false;
+                if (++lues % tailleFetch == 0)
+                    session.clear();
+                action.accept(curseur.get());
+                return true;
+            }
+        };
+        return StreamSupport.stream(lignes, false).onClose(() -> {
+            curseur.close();
+            session.close();
+        });
+    }
+
+    @Override
+    public Page<Produit> readPage(String apresNom, int limite) {
+        try (Session session = UnitOfWork.ouvrirSession()) {
+            Query<Produit> requete = apresNom == null
+                    ? session.createQuery("from Produit p order by p.nom", Produit.class)
+                    : session.createQuery("from Produit p where p.nom > :apres order by p.nom", Produit.class)
+                            .setParameter("apres", apresNom);
+            List<Produit> lus = requete.setMaxResults(limite + 1)
+                    .setCacheable(true)
+                    .setCacheRegion(REGION_REQUETES)
+                    .list();
+            return Page.depuis(lus, limite, Produit::getNom);
+        } catch (Exception e) {
+            System.err.println("Erreur Hibernate (page) : " + e.getMessage());
+            return new Page<>(List.of(), false, null);
+        }
+    }
+
+    /**
+     * Projection par constructeur HQL dans une session de lecture : flush
+     * manuel, lecture seule par défaut (pas d'instantané), fetch size borné.
+     * La session est propre à la lecture, hors unité de travail.
+     */
+    @Override
+    public Page<ProduitResume> readResumes(String apresNom, int limite) {
+        try (Session session = HibernateUtil.getSessionFactory().withOptions()
+                .flushMode(FlushMode.MANUAL)
+                .openSession()) {
+            session.setDefaultReadOnly(true);
+            String hql = "select new com.examen.stock.model.ProduitResume(p.nom, p.prix, c.nom) "
+                    + "from Produit p left join p.catalogue c "
+                    + (apresNom == null ? "" : "where p.nom > :apres ") + "order by p.nom";
+            Query<ProduitResume> requete = session.createQuery(hql, ProduitResume.class)
+                    .setReadOnly(true)
+                    .setFetchSize(Math.min(limite + 1, tailleFetch))
+                    .setMaxResults(limite + 1);
+            if (apresNom != null)
+                requete.setParameter("apres", apresNom);
+            return Page.depuis(requete.list(), limite, ProduitResume::getNom);
+        } catch (Exception e) {
+            System.err.println("Erreur Hibernate (résumés) : " + e.getMessage());
+            return new Page<>(List.of(), false, null);
+        }
+    }
+
+    @Override
+    public Page<String> readNoms(String apresNom, int limite) {
+        try (Session session = HibernateUtil.getSessionFactory().withOptions()
+                .flushMode(FlushMode.MANUAL)
+                .openSession()) {
+            String hql = "select p.nom from Produit p "
+                    + (apresNom == null ? "" : "where p.nom > :apres ") + "order by p.nom";
+            Query<String> requete = session.createQuery(hql, String.class)
+                    .setReadOnly(true)
+                    .setFetchSize(Math.min(limite + 1, tailleFetch))
+                    .setMaxResults(limite + 1);
+            if (apresNom != null)
+                requete.setParameter("apres", apresNom);
+            return Page.depuis(requete.list(), limite, nom -> nom);
+        } catch (Exception e) {
+            System.err.println("Erreur Hibernate (noms) : " + e.getMessage());
+            return new Page<>(List.of(), false, null);
+        }
+    }
+
     @Override
     public Produit readByName(String nom) throws StockException {
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = UnitOfWork.ouvrirSession()) {
             Produit p = session.get(Produit.class, nom);
             if (p != null)
                 return p;
@@ -46,26 +379,161 @@ public class ProduitDaoHibernate implements IDao<Produit> {
         throw new StockException("Produit '" + nom + "' introuvable via Hibernate.");
     }
 
+    /**
+     * Chargement multiple par identifiant (le nom) dans une seule session :
+     * Hibernate sert d'abord les entités déjà en cache puis regroupe le
+     * reste en requêtes IN de TAILLE_IN identifiants.
+     */
+    @Override
+    public Map<String, Produit> readByNames(Collection<String> noms) {
+        Map<String, Produit> trouves = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        try (Session session = UnitOfWork.ouvrirSession()) {
+            List<Produit> produits = session.byMultipleIds(Produit.class)
+                    .withBatchSize(TAILLE_IN)
+                    .multiLoad(List.copyOf(noms));
+            for (Produit p : produits) {
+                if (p != null)
+                    trouves.put(p.getNom(), p);
+            }
+        } catch (Exception e) {
+            System.err.println("Erreur Hibernate (recherche groupée) : " + e.getMessage());
+        }
+        return trouves;
+    }
+
+    /**
+     * merge() compare la version du produit détaché à celle de la base ; le
+     * flush immédiat fait remonter un conflit ici, même dans une unité de travail.
+     */
     @Override
     public void update(Produit produit) throws StockException {
         Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = UnitOfWork.ouvrirSession()) {
             transaction = session.beginTransaction();
-            session.merge(produit);
+            Produit gere = session.merge(produit);
+            session.flush();
             transaction.commit();
+            produit.setVersion(gere.getVersion());
             System.out.println("Hibernate: Produit mis à jour -> " + produit.getNom());
         } catch (Exception e) {
             if (transaction != null)
                 transaction.rollback();
+            if (estConflitVersion(e))
+                throw new ConflitVersionException(produit.getNom(), produit.getVersion());
             System.err.println("Erreur Hibernate (maj) : " + e.getMessage());
             throw new StockException("Erreur lors de la mise à jour Hibernate.");
         }
     }
 
+    @Override
+    public void modifierPrix(String nom, double nouveauPrix) throws StockException {
+        int lignes = executerMiseAJour("modification de prix", session -> session
+                .createMutationQuery("update versioned Produit p set p.prix = :prix where p.nom = :nom")
+                .setParameter("prix", nouveauPrix)
+                .setParameter("nom", nom));
+        if (lignes == 0)
+            throw new StockException("Modification de prix Hibernate impossible : " + nom + " inconnu.");
+        System.out.println("Hibernate: Prix modifié -> " + nom);
+    }
+
+    @Override
+    public boolean modifierPrixSi(String nom, double prixAttendu, double nouveauPrix) throws StockException {
+        return executerMiseAJour("modification conditionnelle", session -> session
+                .createMutationQuery("update versioned Produit p set p.prix = :nouveau where p.nom = :nom and p.prix = :attendu")
+                .setParameter("nouveau", nouveauPrix)
+                .setParameter("nom", nom)
+                .setParameter("attendu", prixAttendu)) == 1;
+    }
+
+    @Override
+    public int reevaluerPrixCatalogue(String nomCatalogue, double pourcentage) throws StockException {
+        double facteur = IProduitDao.facteur(pourcentage);
+        int lignes = executerMiseAJour("réévaluation", session -> session
+                .createMutationQuery("update versioned Produit p set p.prix = round(p.prix * :facteur, 2) "
+                        + "where p.catalogue.id in (select c.id from Catalogue c where c.nom = :catalogue)")
+                .setParameter("facteur", facteur)
+                .setParameter("catalogue", nomCatalogue));
+        System.out.println("Hibernate: " + lignes + " prix réévalués (catalogue " + nomCatalogue + ")");
+        return lignes;
+    }
+
+    @Override
+    public int reevaluerPrixEntre(double min, double max, double pourcentage) throws StockException {
+        double facteur = IProduitDao.facteur(pourcentage);
+        int lignes = executerMiseAJour("réévaluation", session -> session
+                .createMutationQuery("update versioned Produit p set p.prix = round(p.prix * :facteur, 2) "
+                        + "where p.prix between :min and :max")
+                .setParameter("facteur", facteur)
+                .setParameter("min", min)
+                .setParameter("max", max));
+        System.out.println("Hibernate: " + lignes + " prix réévalués (entre " + min + " et " + max + ")");
+        return lignes;
+    }
+
+    @Override
+    public StockStatistics statistiques() {
+        try (Session session = UnitOfWork.ouvrirSession()) {
+            Object[] ligne = session.createQuery("select count(p), sum(p.prix), avg(p.prix), min(p.prix), "
+                    + "max(p.prix), count(distinct p.nom) from Produit p", Object[].class)
+                    .getSingleResult();
+            return StockStatistics.depuisLigne(ligne[0], ligne[1], ligne[2], ligne[3], ligne[4], ligne[5]);
+        } catch (Exception e) {
+            System.err.println("Erreur Hibernate (statistiques) : " + e.getMessage());
+            return StockStatistics.vide();
+        }
+    }
+
+    /**
+     * Vide du cache de second niveau ce qu'une écriture faite hors Hibernate
+     * (DAO JDBC) peut rendre périmé : entités Produit, collections produits
+     * des catalogues et résultats de requêtes. Sans effet tant que Hibernate
+     * n'a pas démarré, rien n'étant alors en cache.
+     */
+    static void evincerCache() {
+        SessionFactory sessionFactory = HibernateUtil.siDemarree();
+        if (sessionFactory == null)
+            return;
+        Cache cache = sessionFactory.getCache();
+        cache.evictEntityData(Produit.class);
+        cache.evictCollectionData(CatalogueDaoHibernate.ROLE_PRODUITS);
+        cache.evictQueryRegion(REGION_REQUETES);
+        cache.evictDefaultQueryRegion();
+    }
+
+    /** Vrai si l'exception (ou une de ses causes) vient d'un contrôle de version Hibernate. */
+    static boolean estConflitVersion(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OptimisticLockException || cause instanceof StaleStateException)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Exécute une requête HQL de mise à jour en masse : une seule instruction
+     * SQL, sans charger les entités dans la session. Les requêtes sont
+     * "update versioned" : la version des lignes touchées est incrémentée.
+     */
+    private static int executerMiseAJour(String operation, Function<Session, MutationQuery> requete)
+            throws StockException {
+        Transaction transaction = null;
+        try (Session session = UnitOfWork.ouvrirSession()) {
+            transaction = session.beginTransaction();
+            int lignes = requete.apply(session).executeUpdate();
+            transaction.commit();
+            return lignes;
+        } catch (Exception e) {
+            if (transaction != null)
+                transaction.rollback();
+            System.err.println("Erreur Hibernate (" + operation + ") : " + e.getMessage());
+            throw new StockException("Erreur lors de la " + operation + " Hibernate.");
+        }
+    }
+
     @Override
     public void delete(String nom) throws StockException {
         Transaction transaction = null;
-        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+        try (Session session = UnitOfWork.ouvrirSession()) {
             transaction = session.beginTransaction();
             Produit p = session.get(Produit.class, nom);
             if (p != null) {
@@ -1,90 +1,599 @@
 package com.examen.stock.dao;
 
+import com.examen.stock.exception.ConflitVersionException;
 import com.examen.stock.exception.StockException;
 import com.examen.stock.model.Produit;
+import com.examen.stock.model.ProduitResume;
+import com.examen.stock.model.StockStatistics;
 import com.examen.stock.util.DatabaseConnection;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class ProduitDaoImpl implements IDao<Produit> {
+public class ProduitDaoImpl implements IProduitDao {
+    private static final int TAILLE_LOT_DEFAUT = 1000;
+    private static final int TAILLE_FETCH_DEFAUT = 1000;
+    // Tailles de listes IN préparées : un lot est complété jusqu'à la taille
+    // supérieure pour que le cache de requêtes ne voie que ces quelques SQL.
+    private static final int[] TAILLES_IN = { 1, 8, 32, 128, 512 };
+    // Les écritures JDBC contournent Hibernate : son cache est vidé après
+    // chacune, à la validation de l'unité de travail s'il y en a une
+    private static final Runnable EVINCER_CACHE = ProduitDaoHibernate::evincerCache;
+
+    private final int tailleLot;
+    private final int tailleFetch;
+
+    public ProduitDaoImpl() {
+        this(TAILLE_LOT_DEFAUT, TAILLE_FETCH_DEFAUT);
+    }
+
+    public ProduitDaoImpl(int tailleLot) {
+        this(tailleLot, TAILLE_FETCH_DEFAUT);
+    }
+
+    public ProduitDaoImpl(int tailleLot, int tailleFetch) {
+        if (tailleLot < 1)
+            throw new IllegalArgumentException("Taille de lot invalide : " + tailleLot);
+        if (tailleFetch < 1)
+            throw new IllegalArgumentException("Taille de fetch invalide : " + tailleFetch);
+        this.tailleLot = tailleLot;
+        this.tailleFetch = tailleFetch;
+    }
 
     @Override
-    public void create(Produit produit) {
+    public void create(Produit produit) throws StockException {
         String sql = "INSERT INTO produits (nom, prix) VALUES (?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.ouvrirConnexion();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, produit.getNom());
             pstmt.setDouble(2, produit.getPrix());
             pstmt.executeUpdate();
+            UnitOfWork.apresValidation(EVINCER_CACHE);
             System.out.println("DAO: Produit créé -> " + produit.getNom());
         } catch (SQLException e) {
             System.err.println("Erreur DAO (insertion) : " + e.getMessage());
+            throw new StockException("Erreur lors de l'insertion de " + produit.getNom() + ".");
         }
     }
 
+    /**
+     * Insertion par lots (addBatch/executeBatch, réécrits en INSERT multi-lignes
+     * par le pilote) dans une seule transaction. Chaque lot est protégé par un
+     * savepoint : un lot en échec est annulé et signalé, les autres sont validés.
+     */
+    @Override
+    public RapportBatch createAll(Collection<Produit> produits) {
+        RapportBatch rapport = new RapportBatch();
+        String sql = "INSERT INTO produits (nom, prix) VALUES (?, ?)";
+        int indexLot = 0;
+        int dansLot = 0;
+        try (Connection conn = UnitOfWork.ouvrirConnexion();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            try {
+                for (Produit produit : produits) {
+                    pstmt.setString(1, produit.getNom());
+                    pstmt.setDouble(2, produit.getPrix());
+                    pstmt.addBatch();
+                    if (++dansLot == tailleLot) {
+                        executerLot(conn, pstmt, indexLot++, dansLot, rapport);
+                        dansLot = 0;
+                    }
+                }
+                if (dansLot > 0)
+                    executerLot(conn, pstmt, indexLot, dansLot, rapport);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                rapport.annuler(indexLot, dansLot, e.getMessage());
+            }
+        } catch (SQLException e) {
+            rapport.annuler(indexLot, dansLot, e.getMessage());
+        }
+        UnitOfWork.apresValidation(EVINCER_CACHE);
+        System.out.println("DAO: Insertion par lots -> " + rapport);
+        return rapport;
+    }
+
+    private void executerLot(Connection conn, PreparedStatement pstmt, int indexLot, int taille,
+            RapportBatch rapport) throws SQLException {
+        Savepoint debutLot = conn.setSavepoint();
+        try {
+            pstmt.executeBatch();
+            conn.releaseSavepoint(debutLot);
+            rapport.ajouterInserees(taille);
+        } catch (BatchUpdateException e) {
+            conn.rollback(debutLot);
+            pstmt.clearBatch();
+            rapport.ajouterEchec(indexLot, taille, e.getMessage());
+        }
+    }
+
+    /** Comme createAll, mais chaque lot est validé dès qu'il est écrit. */
+    @Override
+    public RapportBatch importer(Iterable<Produit> produits) {
+        RapportBatch rapport = new RapportBatch();
+        long debut = System.nanoTime();
+        String sql = "INSERT INTO produits (nom, prix) VALUES (?, ?)";
+        int indexLot = 0;
+        int dansLot = 0;
+        try (Connection conn = DatabaseConnection.getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            for (Produit produit : produits) {
+                pstmt.setString(1, produit.getNom());
+                pstmt.setDouble(2, produit.getPrix());
+                pstmt.addBatch();
+                if (++dansLot == tailleLot) {
+                    validerLot(conn, pstmt, indexLot++, dansLot, rapport);
+                    dansLot = 0;
+                }
+            }
+            if (dansLot > 0)
+                validerLot(conn, pstmt, indexLot, dansLot, rapport);
+        } catch (SQLException e) {
+            rapport.ajouterEchec(indexLot, dansLot, e.getMessage());
+        }
+        // Tranches validées hors de toute unité de travail : éviction immédiate
+        EVINCER_CACHE.run();
+        rapport.chronometrer(debut);
+        System.out.println("DAO: Import -> " + rapport);
+        return rapport;
+    }
+
+    private static void validerLot(Connection conn, PreparedStatement pstmt, int indexLot, int taille,
+            RapportBatch rapport) throws SQLException {
+        try {
+            pstmt.executeBatch();
+            conn.commit();
+            rapport.ajouterInserees(taille);
+        } catch (BatchUpdateException e) {
+            conn.rollback();
+            pstmt.clearBatch();
+            rapport.ajouterEchec(indexLot, taille, e.getMessage());
+        }
+    }
+
+    /**
+     * Upsert par lots dans une seule transaction. Sur MySQL : un INSERT
+     * multi-lignes ... ON DUPLICATE KEY UPDATE (clé unique sur nom), un
+     * aller-retour par lot. Sur les autres bases : UPDATE puis INSERT des
+     * noms absents, deux lots JDBC.
+     */
+    @Override
+    public RapportBatch upsertAll(Collection<Produit> produits) {
+        RapportBatch rapport = new RapportBatch();
+        List<Produit> liste = new ArrayList<>(produits);
+        int indexLot = 0;
+        try (Connection conn = UnitOfWork.ouvrirConnexion()) {
+            String base = conn.getMetaData().getDatabaseProductName();
+            boolean mysql = base.contains("MySQL") || base.contains("MariaDB");
+            conn.setAutoCommit(false);
+            try {
+                for (int debut = 0; debut < liste.size(); debut += tailleLot, indexLot++) {
+                    List<Produit> lot = liste.subList(debut, Math.min(debut + tailleLot, liste.size()));
+                    Savepoint debutLot = conn.setSavepoint();
+                    try {
+                        if (mysql)
+                            upsertMySql(conn, lot, rapport);
+                        else
+                            upsertStandard(conn, lot, rapport);
+                        conn.releaseSavepoint(debutLot);
+                    } catch (SQLException e) {
+                        conn.rollback(debutLot);
+                        rapport.ajouterEchec(indexLot, lot.size(), e.getMessage());
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                rapport.annuler(indexLot, 0, e.getMessage());
+            }
+        } catch (SQLException e) {
+            rapport.annuler(indexLot, 0, e.getMessage());
+        }
+        UnitOfWork.apresValidation(EVINCER_CACHE);
+        System.out.println("DAO: Upsert par lots -> " + rapport);
+        return rapport;
+    }
+
+    /**
+     * Un seul INSERT multi-lignes par lot. MySQL compte 1 ligne par insertion
+     * et 2 par mise à jour (la version change toujours, et le pilote compte
+     * les lignes trouvées) : misesAJour = lignes touchées - taille du lot.
+     */
+    private void upsertMySql(Connection conn, List<Produit> lot, RapportBatch rapport) throws SQLException {
+        String sql = "INSERT INTO produits (nom, prix) VALUES "
+                + String.join(", ", Collections.nCopies(lot.size(), "(?, ?)"))
+                + " ON DUPLICATE KEY UPDATE prix = VALUES(prix), version = version + 1";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < lot.size(); i++) {
+                pstmt.setString(2 * i + 1, lot.get(i).getNom());
+                pstmt.setDouble(2 * i + 2, lot.get(i).getPrix());
+            }
+            int misesAJour = pstmt.executeUpdate() - lot.size();
+            rapport.ajouterMisesAJour(misesAJour);
+            rapport.ajouterInserees(lot.size() - misesAJour);
+        }
+    }
+
+    /**
+     * Repli hors MySQL. Un MERGE compte 1 ligne qu'il insère ou mette à jour :
+     * le lot d'UPDATE dit ligne par ligne quels noms existent, seuls les
+     * autres sont insérés (le dernier prix d'un nom répété dans le lot).
+     * Un nom inséré entre-temps par un autre fait échouer le lot entier.
+     */
+    private void upsertStandard(Connection conn, List<Produit> lot, RapportBatch rapport) throws SQLException {
+        int[] trouves;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "UPDATE produits SET prix = ?, version = version + 1 WHERE nom = ?")) {
+            for (Produit p : lot) {
+                pstmt.setDouble(1, p.getPrix());
+                pstmt.setString(2, p.getNom());
+                pstmt.addBatch();
+            }
+            trouves = pstmt.executeBatch();
+        }
+        Map<String, Produit> absents = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < lot.size(); i++) {
+            if (trouves[i] == Statement.SUCCESS_NO_INFO)
+                throw new SQLException("Le pilote ne compte pas les lignes d'un lot d'UPDATE.");
+            if (trouves[i] == 0)
+                absents.put(lot.get(i).getNom(), lot.get(i));
+        }
+        if (!absents.isEmpty()) {
+            try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO produits (nom, prix) VALUES (?, ?)")) {
+                for (Produit p : absents.values()) {
+                    pstmt.setString(1, p.getNom());
+                    pstmt.setDouble(2, p.getPrix());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+        }
+        rapport.ajouterInserees(absents.size());
+        rapport.ajouterMisesAJour(lot.size() - absents.size());
+    }
+
     @Override
     public List<Produit> readAll() {
         List<Produit> produits = new ArrayList<>();
-        String sql = "SELECT nom, prix FROM produits";
-        try (Connection conn = DatabaseConnection.getConnection();
+        String sql = "SELECT nom, prix, version FROM produits";
+        try (Connection conn = UnitOfWork.ouvrirConnexion();
                 Statement stmt = conn.createStatement();
                 ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                produits.add(new Produit(rs.getString("nom"), rs.getDouble("prix")));
+                produits.add(lire(rs));
             }
         } catch (SQLException e) {
-            System.err.println("Erreur DAO (lecture) : " + e.getMessage());
+            throw echecLecture("lecture", e);
         }
         return produits;
     }
 
+    /**
+     * Lecture en flux sur un curseur serveur MySQL (useCursorFetch) : seules
+     * tailleFetch lignes sont en mémoire à la fois. La connexion reste
+     * empruntée jusqu'à la fermeture du flux.
+     */
+    @Override
+    public Stream<Produit> streamAll() {
+        String sql = "SELECT nom, prix, version FROM produits";
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setFetchSize(tailleFetch);
+            rs = pstmt.executeQuery();
+        } catch (SQLException e) {
+            fermer(rs, pstmt, conn);
+            System.err.println("Erreur DAO (lecture en flux) : " + e.getMessage());
+            return Stream.empty();
+        }
+
+        Connection connexion = conn;
+        PreparedStatement requete = pstmt;
+        ResultSet curseur = rs;
+        Spliterator<Produit> lignes = new Spliterators.AbstractSpliterator<Produit>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Produit> action) {
+                try {
+                    if (!curseur.next())
+                        return false;
+                    action.accept(lire(curseur));
+                    return true;
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Erreur DAO (lecture en flux) : " + e.getMessage(), e);
+                }
+            }
+        };
+        return StreamSupport.stream(lignes, false).onClose(() -> fermer(curseur, requete, connexion));
+    }
+
+    /**
+     * Pagination par clé : WHERE nom > ? ORDER BY nom LIMIT n+1 reste un
+     * parcours d'index quelle que soit la profondeur, contrairement à OFFSET.
+     */
+    @Override
+    public Page<Produit> readPage(String apresNom, int limite) {
+        List<Produit> produits = new ArrayList<>();
+        String sql = apresNom == null
+                ? "SELECT nom, prix, version FROM produits ORDER BY nom LIMIT ?"
+                : "SELECT nom, prix, version FROM produits WHERE nom > ? ORDER BY nom LIMIT ?";
+        try (Connection conn = UnitOfWork.ouvrirConnexion();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            if (apresNom != null)
+                pstmt.setString(index++, apresNom);
+            pstmt.setInt(index, limite + 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    produits.add(lire(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw echecLecture("page", e);
+        }
+        return Page.depuis(produits, limite, Produit::getNom);
+    }
+
+    @Override
+    public Page<ProduitResume> readResumes(String apresNom, int limite) {
+        List<ProduitResume> resumes = new ArrayList<>();
+        String sql = "SELECT p.nom, p.prix, c.nom FROM produits p LEFT JOIN catalogues c ON c.id = p.catalogue_id "
+                + (apresNom == null ? "" : "WHERE p.nom > ? ") + "ORDER BY p.nom LIMIT ?";
+        try (Connection conn = UnitOfWork.ouvrirConnexion();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            if (apresNom != null)
+                pstmt.setString(index++, apresNom);
+            pstmt.setInt(index, limite + 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    resumes.add(new ProduitResume(rs.getString(1), rs.getDouble(2), rs.getString(3)));
+                }
+            }
+        } catch (SQLException e) {
+            throw echecLecture("résumés", e);
+        }
+        return Page.depuis(resumes, limite, ProduitResume::getNom);
+    }
+
+    @Override
+    public Page<String> readNoms(String apresNom, int limite) {
+        List<String> noms = new ArrayList<>();
+        String sql = "SELECT nom FROM produits " + (apresNom == null ? "" : "WHERE nom > ? ")
+                + "ORDER BY nom LIMIT ?";
+        try (Connection conn = UnitOfWork.ouvrirConnexion();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            if (apresNom != null)
+                pstmt.setString(index++, apresNom);
+            pstmt.setInt(index, limite + 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    noms.add(rs.getString(1));
+                }
+            }
+        } catch (SQLException e) {
+            throw echecLecture("noms", e);
+        }
+        return Page.depuis(noms, limite, nom -> nom);
+    }
+
+    private static Produit lire(ResultSet rs) throws SQLException {
+        Produit produit = new Produit(rs.getString("nom"), rs.getDouble("prix"));
+        produit.setVersion(rs.getInt("version"));
+        return produit;
+    }
+
+    private static void fermer(AutoCloseable... ressources) {
+        for (AutoCloseable ressource : ressources) {
+            if (ressource == null)
+                continue;
+            try {
+                ressource.close();
+            } catch (Exception e) {
+                System.err.println("Erreur DAO (fermeture) : " + e.getMessage());
+            }
+        }
+    }
+
     @Override
     public Produit readByName(String nom) throws StockException {
-        String sql = "SELECT nom, prix FROM produits WHERE nom = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        String sql = "SELECT nom, prix, version FROM produits WHERE nom = ?";
+        try (Connection conn = UnitOfWork.ouvrirConnexion();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, nom);
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    return new Produit(rs.getString("nom"), rs.getDouble("prix"));
+                    return lire(rs);
                 }
             }
         } catch (SQLException e) {
             System.err.println("Erreur DAO (recherche) : " + e.getMessage());
+            throw new StockException("Erreur lors de la recherche de " + nom + ".");
         }
         throw new StockException("Produit '" + nom + "' introuvable via DAO.");
     }
 
+    /**
+     * Recherche groupée par listes IN découpées en lots de 512 noms au plus :
+     * un aller-retour par lot au lieu d'un par nom.
+     */
+    @Override
+    public Map<String, Produit> readByNames(Collection<String> noms) {
+        Map<String, Produit> trouves = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        List<String> distincts = new ArrayList<>(new LinkedHashSet<>(noms));
+        int tailleMax = TAILLES_IN[TAILLES_IN.length - 1];
+        try (Connection conn = UnitOfWork.ouvrirConnexion()) {
+            for (int debut = 0; debut < distincts.size(); debut += tailleMax) {
+                List<String> lot = distincts.subList(debut, Math.min(debut + tailleMax, distincts.size()));
+                int taille = tailleIn(lot.size());
+                String sql = "SELECT nom, prix, version FROM produits WHERE nom IN ("
+                        + String.join(", ", Collections.nCopies(taille, "?")) + ")";
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < taille; i++) {
+                        // Complète le lot en répétant le dernier nom
+                        pstmt.setString(i + 1, lot.get(Math.min(i, lot.size() - 1)));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            Produit p = lire(rs);
+                            trouves.put(p.getNom(), p);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw echecLecture("recherche groupée", e);
+        }
+        return trouves;
+    }
+
+    private static int tailleIn(int taille) {
+        for (int t : TAILLES_IN) {
+            if (t >= taille)
+                return t;
+        }
+        return TAILLES_IN[TAILLES_IN.length - 1];
+    }
+
+    /**
+     * Mise à jour optimiste : n'écrit que si la ligne est encore à la version
+     * lue, sinon lève {@link ConflitVersionException}. La version du produit
+     * passé en paramètre est avancée en cas de succès.
+     */
     @Override
     public void update(Produit produit) throws StockException {
-        String sql = "UPDATE produits SET prix = ? WHERE nom = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        String sql = "UPDATE produits SET prix = ?, version = version + 1 WHERE nom = ? AND version = ?";
+        try (Connection conn = UnitOfWork.ouvrirConnexion();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setDouble(1, produit.getPrix());
             pstmt.setString(2, produit.getNom());
+            pstmt.setInt(3, produit.getVersion());
             int rows = pstmt.executeUpdate();
+            if (rows == 0 && existe(conn, produit.getNom()))
+                throw new ConflitVersionException(produit.getNom(), produit.getVersion());
             if (rows == 0)
                 throw new StockException("Mise à jour DAO impossible : " + produit.getNom() + " inconnu.");
+            produit.setVersion(produit.getVersion() + 1);
+            UnitOfWork.apresValidation(EVINCER_CACHE);
             System.out.println("DAO: Produit mis à jour -> " + produit.getNom());
         } catch (SQLException e) {
             System.err.println("Erreur DAO (maj) : " + e.getMessage());
+            throw new StockException("Erreur lors de la mise à jour de " + produit.getNom() + ".");
+        }
+    }
+
+    private static boolean existe(Connection conn, String nom) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT 1 FROM produits WHERE nom = ?")) {
+            pstmt.setString(1, nom);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    @Override
+    public void modifierPrix(String nom, double nouveauPrix) throws StockException {
+        String sql = "UPDATE produits SET prix = ?, version = version + 1 WHERE nom = ?";
+        if (executerMiseAJour(sql, "modification de prix", nouveauPrix, nom) == 0)
+            throw new StockException("Modification de prix impossible : " + nom + " inconnu.");
+        System.out.println("DAO: Prix modifié -> " + nom);
+    }
+
+    @Override
+    public boolean modifierPrixSi(String nom, double prixAttendu, double nouveauPrix) throws StockException {
+        String sql = "UPDATE produits SET prix = ?, version = version + 1 WHERE nom = ? AND prix = ?";
+        return executerMiseAJour(sql, "modification conditionnelle", nouveauPrix, nom, prixAttendu) == 1;
+    }
+
+    @Override
+    public int reevaluerPrixCatalogue(String nomCatalogue, double pourcentage) throws StockException {
+        String sql = "UPDATE produits SET prix = ROUND(prix * ?, 2), version = version + 1 "
+                + "WHERE catalogue_id IN (SELECT id FROM catalogues WHERE nom = ?)";
+        int lignes = executerMiseAJour(sql, "réévaluation", IProduitDao.facteur(pourcentage), nomCatalogue);
+        System.out.println("DAO: " + lignes + " prix réévalués (catalogue " + nomCatalogue + ")");
+        return lignes;
+    }
+
+    @Override
+    public int reevaluerPrixEntre(double min, double max, double pourcentage) throws StockException {
+        String sql = "UPDATE produits SET prix = ROUND(prix * ?, 2), version = version + 1 "
+                + "WHERE prix BETWEEN ? AND ?";
+        int lignes = executerMiseAJour(sql, "réévaluation", IProduitDao.facteur(pourcentage), min, max);
+        System.out.println("DAO: " + lignes + " prix réévalués (entre " + min + " et " + max + ")");
+        return lignes;
+    }
+
+    @Override
+    public StockStatistics statistiques() {
+        String sql = "SELECT COUNT(*), SUM(prix), AVG(prix), MIN(prix), MAX(prix), COUNT(DISTINCT nom) FROM produits";
+        try (Connection conn = UnitOfWork.ouvrirConnexion();
+                PreparedStatement pstmt = conn.prepareStatement(sql);
+                ResultSet rs = pstmt.executeQuery()) {
+            if (rs.next())
+                return StockStatistics.depuisLigne(rs.getObject(1), rs.getObject(2), rs.getObject(3),
+                        rs.getObject(4), rs.getObject(5), rs.getObject(6));
+        } catch (SQLException e) {
+            throw echecLecture("statistiques", e);
+        }
+        return StockStatistics.vide();
+    }
+
+    /**
+     * Erreur d'une lecture dont la signature ne déclare pas StockException :
+     * remontée non contrôlée, qui annule aussi l'unité de travail englobante.
+     */
+    private static IllegalStateException echecLecture(String operation, SQLException e) {
+        System.err.println("Erreur DAO (" + operation + ") : " + e.getMessage());
+        return new IllegalStateException("Erreur DAO (" + operation + ") : " + e.getMessage(), e);
+    }
+
+    private static int executerMiseAJour(String sql, String operation, Object... parametres) throws StockException {
+        try (Connection conn = UnitOfWork.ouvrirConnexion();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < parametres.length; i++)
+                pstmt.setObject(i + 1, parametres[i]);
+            int lignes = pstmt.executeUpdate();
+            if (lignes > 0)
+                UnitOfWork.apresValidation(EVINCER_CACHE);
+            return lignes;
+        } catch (SQLException e) {
+            System.err.println("Erreur DAO (" + operation + ") : " + e.getMessage());
+            throw new StockException("Erreur lors de la " + operation + ".");
         }
     }
 
     @Override
     public void delete(String nom) throws StockException {
         String sql = "DELETE FROM produits WHERE nom = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.ouvrirConnexion();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, nom);
             int rows = pstmt.executeUpdate();
             if (rows == 0)
                 throw new StockException("Suppression DAO impossible : " + nom + " inconnu.");
+            UnitOfWork.apresValidation(EVINCER_CACHE);
             System.out.println("DAO: Produit supprimé -> " + nom);
         } catch (SQLException e) {
             System.err.println("Erreur DAO (suppression) : " + e.getMessage());
+            throw new StockException("Erreur lors de la suppression de " + nom + ".");
         }
     }
 }
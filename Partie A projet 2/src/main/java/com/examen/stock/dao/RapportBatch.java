@@ -0,0 +1,104 @@
+package com.examen.stock.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Résultat d'une écriture en lot : nombre de lignes écrites et détail des
+ * lots en échec, au lieu d'erreurs simplement affichées sur System.err.
+ */
+public class RapportBatch {
+    private int lignesInserees;
+    private int lignesMisesAJour;
+    private long dureeMs;
+    private final List<EchecLot> echecs = new ArrayList<>();
+
+    public void ajouterInserees(int nombre) {
+        lignesInserees += nombre;
+    }
+
+    public void ajouterMisesAJour(int nombre) {
+        lignesMisesAJour += nombre;
+    }
+
+    public void ajouterEchec(int indexLot, int taille, String message) {
+        echecs.add(new EchecLot(indexLot, taille, message));
+    }
+
+    /**
+     * Toute la transaction a été annulée : plus aucune ligne n'est écrite et
+     * le lot fautif est enregistré comme cause.
+     */
+    public void annuler(int indexLot, int taille, String message) {
+        lignesInserees = 0;
+        lignesMisesAJour = 0;
+        ajouterEchec(indexLot, taille, "transaction annulée : " + message);
+    }
+
+    /** Enregistre la durée écoulée depuis debutNanos (System.nanoTime()). */
+    public void chronometrer(long debutNanos) {
+        dureeMs = (System.nanoTime() - debutNanos) / 1_000_000;
+    }
+
+    public long getDureeMs() {
+        return dureeMs;
+    }
+
+    /** Lignes écrites par seconde, 0 si l'opération n'a pas été chronométrée. */
+    public double getDebit() {
+        return dureeMs == 0 ? 0 : (lignesInserees + lignesMisesAJour) * 1000.0 / dureeMs;
+    }
+
+    public int getLignesInserees() {
+        return lignesInserees;
+    }
+
+    public int getLignesMisesAJour() {
+        return lignesMisesAJour;
+    }
+
+    public List<EchecLot> getEchecs() {
+        return Collections.unmodifiableList(echecs);
+    }
+
+    public boolean estComplet() {
+        return echecs.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        String chrono = dureeMs == 0 ? "" : String.format(", duree=%dms, debit=%.0f lignes/s", dureeMs, getDebit());
+        return "RapportBatch{inserees=" + lignesInserees + ", misesAJour=" + lignesMisesAJour
+                + ", lotsEnEchec=" + echecs.size() + chrono + '}';
+    }
+
+    public static class EchecLot {
+        private final int indexLot;
+        private final int taille;
+        private final String message;
+
+        public EchecLot(int indexLot, int taille, String message) {
+            this.indexLot = indexLot;
+            this.taille = taille;
+            this.message = message;
+        }
+
+        public int getIndexLot() {
+            return indexLot;
+        }
+
+        public int getTaille() {
+            return taille;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "Lot " + indexLot + " (" + taille + " éléments) : " + message;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.examen.stock.dao;
+
+import com.examen.stock.exception.StockException;
+import com.examen.stock.util.DatabaseConnection;
+import com.examen.stock.util.HibernateUtil;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.resource.transaction.spi.TransactionStatus;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Unité de travail liée au thread courant : une seule connexion du pool et
+ * une seule transaction pour plusieurs appels DAO, JDBC comme Hibernate (la
+ * session est ouverte sur la même connexion). Les DAO obtiennent leurs
+ * ressources par {@link #ouvrirSession()} et {@link #ouvrirConnexion()} :
+ * hors unité ils ont une session/connexion à eux, dans une unité ils
+ * reçoivent une vue dont close() et commit() sont sans effet et dont le
+ * rollback marque l'unité entière pour annulation. Un appel imbriqué à
+ * {@link #executer(Travail)} rejoint l'unité englobante.
+ *
+ * L'unité ne suit pas les appels passés à un autre thread (AsyncDao).
+ */
+public final class UnitOfWork {
+    private static final ThreadLocal<UnitOfWork> COURANTE = new ThreadLocal<>();
+
+    private Connection connexion;
+    private Connection vueConnexion;
+    private Session session;
+    private Session vueSession;
+    private Transaction transaction;
+    private boolean rollbackOnly = false;
+    private boolean validee = false;
+    private final Set<Runnable> apresValidation = new LinkedHashSet<>();
+
+    private UnitOfWork() {
+    }
+
+    @FunctionalInterface
+    public interface Travail<R> {
+        R executer() throws StockException;
+    }
+
+    /**
+     * Exécute le travail dans une unité : validée une seule fois à la fin
+     * (un flush Hibernate puis un commit), annulée si le travail lève une
+     * exception ou si un DAO a demandé un rollback.
+     */
+    public static <R> R executer(Travail<R> travail) throws StockException {
+        UnitOfWork englobante = COURANTE.get();
+        if (englobante != null) {
+            try {
+                return travail.executer();
+            } catch (StockException | RuntimeException e) {
+                englobante.rollbackOnly = true;
+                throw e;
+            }
+        }
+        UnitOfWork unite = new UnitOfWork();
+        COURANTE.set(unite);
+        try {
+            R resultat;
+            try {
+                resultat = travail.executer();
+            } catch (StockException | RuntimeException e) {
+                unite.rollbackOnly = true;
+                throw e;
+            }
+            unite.valider();
+            return resultat;
+        } finally {
+            COURANTE.remove();
+            unite.liberer();
+        }
+    }
+
+    public static boolean estActive() {
+        return COURANTE.get() != null;
+    }
+
+    /**
+     * Action lancée une fois l'unité courante validée, abandonnée si elle est
+     * annulée ; hors unité, l'action est lancée tout de suite. Une même
+     * instance n'est enregistrée qu'une fois par unité.
+     */
+    public static void apresValidation(Runnable action) {
+        UnitOfWork unite = COURANTE.get();
+        if (unite == null)
+            action.run();
+        else
+            unite.apresValidation.add(action);
+    }
+
+    /** Session de l'unité courante, ou nouvelle session si aucune unité n'est active. */
+    public static Session ouvrirSession() {
+        UnitOfWork unite = COURANTE.get();
+        if (unite == null)
+            return HibernateUtil.getSessionFactory().openSession();
+        try {
+            return unite.session();
+        } catch (SQLException e) {
+            unite.rollbackOnly = true;
+            throw new IllegalStateException("Connexion de l'unité de travail indisponible", e);
+        }
+    }
+
+    /** Connexion de l'unité courante, ou connexion empruntée au pool si aucune unité n'est active. */
+    public static Connection ouvrirConnexion() throws SQLException {
+        UnitOfWork unite = COURANTE.get();
+        if (unite == null)
+            return DatabaseConnection.getConnection();
+        unite.connexion();
+        return unite.vueConnexion;
+    }
+
+    private void connexion() throws SQLException {
+        if (connexion != null)
+            return;
+        connexion = DatabaseConnection.getConnection();
+        connexion.setAutoCommit(false);
+        vueConnexion = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new VueConnexion());
+    }
+
+    private Session session() throws SQLException {
+        if (session == null) {
+            connexion();
+            session = HibernateUtil.getSessionFactory().withOptions().connection(connexion).openSession();
+            transaction = session.beginTransaction();
+            vueSession = (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+                    new Class<?>[] { Session.class }, new VueSession());
+        }
+        return vueSession;
+    }
+
+    private void valider() throws StockException {
+        if (rollbackOnly)
+            throw new StockException("Unité de travail annulée : un DAO a demandé un rollback.");
+        try {
+            if (transaction != null)
+                transaction.commit(); // flush de la session puis commit de la connexion partagée
+            else if (connexion != null)
+                connexion.commit();
+            validee = true;
+        } catch (Exception e) {
+            System.err.println("Erreur unité de travail (validation) : " + e.getMessage());
+            throw new StockException("Échec de la validation de l'unité de travail.");
+        }
+        for (Runnable action : apresValidation)
+            action.run();
+    }
+
+    private void liberer() {
+        try {
+            if (!validee) {
+                if (transaction != null && transaction.isActive())
+                    transaction.rollback();
+                else if (connexion != null)
+                    connexion.rollback();
+            }
+        } catch (Exception e) {
+            System.err.println("Erreur unité de travail (annulation) : " + e.getMessage());
+        }
+        if (session != null)
+            session.close();
+        if (connexion != null) {
+            try {
+                connexion.close(); // le pool rétablit l'autocommit
+            } catch (SQLException e) {
+                System.err.println("Erreur unité de travail (restitution) : " + e.getMessage());
+            }
+        }
+    }
+
+    private static Object deleguer(Object cible, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(cible, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** Connexion vue par les DAO : la transaction appartient à l'unité. */
+    private final class VueConnexion implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                case "commit":
+                case "setAutoCommit":
+                    return null;
+                case "getAutoCommit":
+                    return false;
+                case "rollback":
+                    if (args == null || args.length == 0) {
+                        rollbackOnly = true;
+                        return null;
+                    }
+                    break; // rollback vers un savepoint : délégué
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            return deleguer(connexion, method, args);
+        }
+    }
+
+    /** Session vue par les DAO : fermeture et transaction gérées par l'unité. */
+    private final class VueSession implements InvocationHandler {
+        private final Transaction vueTransaction = (Transaction) Proxy.newProxyInstance(
+                Transaction.class.getClassLoader(), new Class<?>[] { Transaction.class }, this::invokeTransaction);
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    return null;
+                case "beginTransaction":
+                case "getTransaction":
+                    return vueTransaction;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return deleguer(session, method, args);
+            }
+        }
+
+        private Object invokeTransaction(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "begin":
+                case "commit":
+                    return null;
+                case "rollback":
+                case "setRollbackOnly":
+                case "markRollbackOnly":
+                    rollbackOnly = true;
+                    return null;
+                case "getRollbackOnly":
+                    return rollbackOnly;
+                case "isActive":
+                    return true;
+                case "getStatus":
+                    return TransactionStatus.ACTIVE;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return deleguer(transaction, method, args);
+            }
+        }
+    }
+}
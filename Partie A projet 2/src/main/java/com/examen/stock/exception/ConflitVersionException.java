@@ -0,0 +1,26 @@
+package com.examen.stock.exception;
+
+/**
+ * Écriture refusée par le verrouillage optimiste : la ligne a changé de
+ * version depuis sa lecture. Relire puis réessayer suffit en général.
+ */
+public class ConflitVersionException extends StockException {
+    private static final long serialVersionUID = 1L;
+
+    private final String nom;
+    private final int versionLue;
+
+    public ConflitVersionException(String nom, int versionLue) {
+        super("Conflit de version sur '" + nom + "' : modifié par un autre écrivain depuis la version " + versionLue + ".");
+        this.nom = nom;
+        this.versionLue = versionLue;
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public int getVersionLue() {
+        return versionLue;
+    }
+}
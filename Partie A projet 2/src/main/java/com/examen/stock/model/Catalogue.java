@@ -7,6 +7,8 @@ public class Catalogue {
     private int id;
     private String nom;
     private Set<Produit> produits = new HashSet<>();
+    // Version de la ligne, vérifiée par Hibernate à chaque mise à jour
+    private int version;
 
     // Constructeur par défaut pour Hibernate
     public Catalogue() {
@@ -40,6 +42,14 @@ public class Catalogue {
         this.produits = produits;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     /**
      * Méthode utilitaire pour ajouter un produit au catalogue
      * en maintenant la cohérence bidirectionnelle.
@@ -0,0 +1,34 @@
+package com.examen.stock.model;
+
+/**
+ * Vue résumée d'un catalogue pour les listes : identifiant, nom et nombre
+ * de produits, sans charger les produits eux-mêmes.
+ */
+public class CatalogueResume {
+    private final int id;
+    private final String nom;
+    private final long nbProduits;
+
+    public CatalogueResume(int id, String nom, long nbProduits) {
+        this.id = id;
+        this.nom = nom;
+        this.nbProduits = nbProduits;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public long getNbProduits() {
+        return nbProduits;
+    }
+
+    @Override
+    public String toString() {
+        return "Catalogue{" + "id=" + id + ", nom='" + nom + '\'' + ", nbProduits=" + nbProduits + '}';
+    }
+}
@@ -4,6 +4,8 @@ public class Produit {
     private String nom;
     private double prix;
     private Catalogue catalogue;
+    // Verrouillage optimiste : incrémentée à chaque écriture
+    private int version;
 
     // Constructeur par défaut requis par Hibernate
     public Produit() {
@@ -38,6 +40,14 @@ public class Produit {
         this.catalogue = catalogue;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return nom + " (" + prix + "€)";
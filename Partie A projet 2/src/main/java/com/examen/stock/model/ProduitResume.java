@@ -0,0 +1,35 @@
+package com.examen.stock.model;
+
+/**
+ * Projection en lecture seule d'un produit pour les listes et rapports :
+ * nom, prix et nom du catalogue (null si le produit n'en a pas). Ce n'est
+ * pas une entité : rien à suivre ni à vérifier au flush.
+ */
+public class ProduitResume {
+    private final String nom;
+    private final double prix;
+    private final String catalogueNom;
+
+    public ProduitResume(String nom, double prix, String catalogueNom) {
+        this.nom = nom;
+        this.prix = prix;
+        this.catalogueNom = catalogueNom;
+    }
+
+    public String getNom() {
+        return nom;
+    }
+
+    public double getPrix() {
+        return prix;
+    }
+
+    public String getCatalogueNom() {
+        return catalogueNom;
+    }
+
+    @Override
+    public String toString() {
+        return nom + " (" + prix + "€" + (catalogueNom == null ? "" : ", " + catalogueNom) + ")";
+    }
+}
@@ -0,0 +1,86 @@
+package com.examen.stock.model;
+
+import java.util.DoubleSummaryStatistics;
+
+/**
+ * Agrégats du stock calculés en une requête : nombre de produits, somme,
+ * moyenne, minimum et maximum des prix, nombre de noms distincts.
+ */
+public class StockStatistics {
+    private final long nombre;
+    private final double somme;
+    private final double moyenne;
+    private final double min;
+    private final double max;
+    private final long nomsDistincts;
+
+    public StockStatistics(long nombre, double somme, double moyenne, double min, double max, long nomsDistincts) {
+        this.nombre = nombre;
+        this.somme = somme;
+        this.moyenne = moyenne;
+        this.min = min;
+        this.max = max;
+        this.nomsDistincts = nomsDistincts;
+    }
+
+    public static StockStatistics vide() {
+        return new StockStatistics(0, 0, 0, 0, 0, 0);
+    }
+
+    /** Ligne d'agrégats SQL/HQL : SUM, AVG, MIN et MAX valent NULL sur une table vide. */
+    public static StockStatistics depuisLigne(Object nombre, Object somme, Object moyenne, Object min,
+            Object max, Object nomsDistincts) {
+        return new StockStatistics(entier(nombre), reel(somme), reel(moyenne), reel(min), reel(max),
+                entier(nomsDistincts));
+    }
+
+    /** Agrégats calculés en mémoire (GestionnaireStock). */
+    public static StockStatistics depuis(DoubleSummaryStatistics prix, long nomsDistincts) {
+        if (prix.getCount() == 0)
+            return vide();
+        return new StockStatistics(prix.getCount(), prix.getSum(), prix.getAverage(), prix.getMin(),
+                prix.getMax(), nomsDistincts);
+    }
+
+    private static long entier(Object valeur) {
+        return valeur == null ? 0 : ((Number) valeur).longValue();
+    }
+
+    private static double reel(Object valeur) {
+        return valeur == null ? 0 : ((Number) valeur).doubleValue();
+    }
+
+    public long getNombre() {
+        return nombre;
+    }
+
+    public double getSomme() {
+        return somme;
+    }
+
+    public double getMoyenne() {
+        return moyenne;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public long getNomsDistincts() {
+        return nomsDistincts;
+    }
+
+    public boolean estVide() {
+        return nombre == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "StockStatistics{nombre=" + nombre + ", somme=" + somme + ", moyenne=" + moyenne
+                + ", min=" + min + ", max=" + max + ", nomsDistincts=" + nomsDistincts + '}';
+    }
+}
@@ -0,0 +1,546 @@
+package com.examen.stock.repository;
+
+import com.examen.stock.dao.Page;
+import com.examen.stock.dao.RapportBatch;
+import com.examen.stock.exception.StockException;
+import com.examen.stock.model.Catalogue;
+import com.examen.stock.model.Produit;
+import com.examen.stock.model.StockStatistics;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+
+/**
+ * Inventaire mémoire en colonnes (struct-of-arrays) pour les très gros
+ * volumes : une ligne par produit répartie dans des tableaux primitifs
+ * (prix, identifiant de nom, identifiant de catalogue, version) au lieu
+ * d'un objet Produit par entrée. Les filtres et agrégats sur le prix sont
+ * des boucles sur un double[] contigu.
+ *
+ * Les noms sont codés par dictionnaire : la ligne ne porte qu'un entier,
+ * l'identifiant de nom. Le texte est rangé bout à bout dans une arène de
+ * caractères (char[] plus début et longueur par identifiant), sans String
+ * ni en-tête d'objet par nom ; il est indexé sans distinction de casse par
+ * une table à adressage ouvert. Hachage, égalité et tri lisent l'arène sur
+ * place, un String n'est construit qu'en rendant un Produit. Les lignes
+ * restent contiguës : une suppression déplace la dernière ligne dans le
+ * trou. Pour la pagination, les identifiants de nom sont triés à la
+ * demande (tri fusion sur int[]), une fois par série d'ajouts ou de
+ * suppressions.
+ *
+ * Les Produit rendus sont des copies construites à la demande ; les
+ * modifier ne change pas le stock (utiliser mettreAJour). Le catalogue
+ * est conservé par son identifiant (0 = aucun). Non synchronisé.
+ */
+public class ProduitColonnaireRepository implements Repository<Produit> {
+    private static final int CAPACITE_INITIALE = 1024;
+    private static final int CARACTERES_PAR_NOM = 16;
+
+    // Colonnes, indexées par ligne (0 .. taille - 1)
+    private double[] prix = new double[CAPACITE_INITIALE];
+    private int[] nomIds = new int[CAPACITE_INITIALE];
+    private int[] catalogueIds = new int[CAPACITE_INITIALE];
+    private int[] versions = new int[CAPACITE_INITIALE];
+    private int taille;
+
+    // Dictionnaire des noms, indexé par identifiant de nom ; les identifiants libérés sont réutilisés
+    private int[] debuts = new int[CAPACITE_INITIALE];
+    private int[] longueurs = new int[CAPACITE_INITIALE]; // -1 : identifiant libre
+    private int[] hachages = new int[CAPACITE_INITIALE];
+    private int[] lignes = new int[CAPACITE_INITIALE];
+    private int[] idsLibres = new int[16];
+    private int nbIdsLibres;
+    private int prochainId;
+
+    // Arène des caractères des noms ; la place des noms supprimés est reprise au compactage
+    private char[] arene = new char[CARACTERES_PAR_NOM * CAPACITE_INITIALE];
+    private int finArene;
+    private int areneLibre;
+
+    // Index nom -> identifiant : sondage linéaire, 0 = case vide, sinon identifiant + 1
+    private int[] table = new int[2 * CAPACITE_INITIALE];
+
+    // Identifiants de nom triés par nom ; à refaire après un ajout ou une suppression
+    private int[] ordre = new int[0];
+    private boolean ordreValide = true;
+
+    // Catalogues rencontrés, pour rendre la même instance à la matérialisation
+    private final Map<Integer, Catalogue> catalogues = new HashMap<>();
+
+    /**
+     * Un nom déjà présent, sans distinction de casse, est refusé comme dans
+     * GestionnaireStock : passer par mettreAJour pour le modifier.
+     *
+     * @throws IllegalArgumentException si le nom est déjà présent
+     */
+    @Override
+    public void ajouter(Produit produit) {
+        if (!inserer(produit))
+            throw new IllegalArgumentException("Ajout refusé : " + produit.getNom() + " existe déjà.");
+        System.out.println("Ajout de : " + produit.getNom());
+    }
+
+    /** Même règle que {@link #ajouter}, sans exception : chaque nom déjà présent est un échec à sa position. */
+    @Override
+    public RapportBatch ajouterTous(Collection<Produit> produits) {
+        RapportBatch rapport = new RapportBatch();
+        int ajoutes = 0;
+        int position = 0;
+        for (Produit produit : produits) {
+            if (inserer(produit))
+                ajoutes++;
+            else
+                rapport.ajouterEchec(position, 1, "Ajout refusé : " + produit.getNom() + " existe déjà.");
+            position++;
+        }
+        rapport.ajouterInserees(ajoutes);
+        System.out.println("Ajout en lot de " + ajoutes + " éléments (" + (produits.size() - ajoutes) + " refusés)");
+        return rapport;
+    }
+
+    /** @return false, sans rien écrire, si une ligne de même nom existe déjà */
+    private boolean inserer(Produit produit) {
+        String nom = produit.getNom();
+        int hachage = hacher(nom);
+        if (chercher(nom, hachage) >= 0)
+            return false;
+        ordreValide = false;
+        if (taille == prix.length)
+            agrandirColonnes();
+        int id = nouvelId();
+        debuts[id] = stockerNom(nom);
+        longueurs[id] = nom.length();
+        hachages[id] = hachage;
+        lignes[id] = taille;
+        placer(id);
+        nomIds[taille] = id;
+        ecrire(taille, produit);
+        taille++;
+        return true;
+    }
+
+    /** Vue paresseuse sur une copie des colonnes : chaque Produit est construit à la lecture. */
+    @Override
+    public List<Produit> listerTout() {
+        int[] debutsLignes = new int[taille];
+        int[] longueursLignes = new int[taille];
+        for (int i = 0; i < taille; i++) {
+            debutsLignes[i] = debuts[nomIds[i]];
+            longueursLignes[i] = longueurs[nomIds[i]];
+        }
+        return new VueProduits(Arrays.copyOf(arene, finArene), debutsLignes, longueursLignes,
+                Arrays.copyOf(prix, taille), Arrays.copyOf(catalogueIds, taille), Arrays.copyOf(versions, taille),
+                Map.copyOf(catalogues));
+    }
+
+    /** Recherche dichotomique dans les identifiants triés : O(log n + limite) une fois le tri fait. */
+    @Override
+    public Page<Produit> listerPage(String apresNom, int limite) {
+        int[] ids = ordre();
+        int debut = apresNom == null ? 0 : premierApres(ids, apresNom);
+        int fin = (int) Math.min(ids.length, (long) debut + limite + 1);
+        List<Produit> lus = new ArrayList<>(fin - debut);
+        for (int i = debut; i < fin; i++)
+            lus.add(materialiser(lignes[ids[i]]));
+        return Page.depuis(lus, limite, Produit::getNom);
+    }
+
+    /** Identifiants en usage triés par nom : O(n log n), refait seulement si des noms ont changé. */
+    private int[] ordre() {
+        if (!ordreValide) {
+            int[] ids = new int[taille];
+            int n = 0;
+            for (int id = 0; id < prochainId; id++) {
+                if (longueurs[id] >= 0)
+                    ids[n++] = id;
+            }
+            ordre = trier(ids);
+            ordreValide = true;
+        }
+        return ordre;
+    }
+
+    /** Tri fusion ascendant sur int[], comparaisons lues dans l'arène ; rend le tableau trié. */
+    private int[] trier(int[] ids) {
+        int n = ids.length;
+        int[] source = ids;
+        int[] cible = new int[n];
+        for (int largeur = 1; largeur < n; largeur <<= 1) {
+            for (int bas = 0; bas < n; bas += 2 * largeur) {
+                int milieu = Math.min(bas + largeur, n);
+                int haut = Math.min(bas + 2 * largeur, n);
+                int i = bas;
+                int j = milieu;
+                int k = bas;
+                while (i < milieu && j < haut)
+                    cible[k++] = comparer(source[i], source[j]) <= 0 ? source[i++] : source[j++];
+                while (i < milieu)
+                    cible[k++] = source[i++];
+                while (j < haut)
+                    cible[k++] = source[j++];
+            }
+            int[] echange = source;
+            source = cible;
+            cible = echange;
+        }
+        return source;
+    }
+
+    /** Position du premier nom strictement après apresNom. */
+    private int premierApres(int[] ids, String apresNom) {
+        int bas = 0;
+        int haut = ids.length;
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (comparer(ids[milieu], apresNom) <= 0)
+                bas = milieu + 1;
+            else
+                haut = milieu;
+        }
+        return bas;
+    }
+
+    @Override
+    public Produit trouverParNom(String nom) throws StockException {
+        return materialiser(ligne(nom));
+    }
+
+    @Override
+    public Map<String, Produit> trouverParNoms(Collection<String> noms) {
+        Map<String, Produit> trouves = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (String nom : noms) {
+            int id = chercher(nom, hacher(nom));
+            if (id >= 0 && !trouves.containsKey(nom)) {
+                Produit produit = materialiser(lignes[id]);
+                trouves.put(produit.getNom(), produit);
+            }
+        }
+        return trouves;
+    }
+
+    /** Le nom prend la casse du produit reçu, comme dans GestionnaireStock ; l'ordre ne change pas. */
+    @Override
+    public void mettreAJour(Produit produit) throws StockException {
+        String nom = produit.getNom();
+        int id = identifiant(nom);
+        if (nom.length() == longueurs[id]) {
+            nom.getChars(0, nom.length(), arene, debuts[id]);
+        } else {
+            areneLibre += longueurs[id];
+            longueurs[id] = -1; // l'ancien nom ne doit pas être recopié si l'arène est compactée
+            debuts[id] = stockerNom(nom);
+            longueurs[id] = nom.length();
+        }
+        ecrire(lignes[id], produit);
+        System.out.println("Maj de : " + produit.getNom());
+    }
+
+    /** La dernière ligne prend la place de la ligne supprimée : les colonnes restent contiguës. */
+    @Override
+    public void supprimer(String nom) throws StockException {
+        int id = identifiant(nom);
+        ordreValide = false;
+        int ligne = lignes[id];
+        int derniere = --taille;
+        if (ligne != derniere) {
+            prix[ligne] = prix[derniere];
+            nomIds[ligne] = nomIds[derniere];
+            catalogueIds[ligne] = catalogueIds[derniere];
+            versions[ligne] = versions[derniere];
+            lignes[nomIds[ligne]] = ligne;
+        }
+        retirer(id);
+        System.out.println("Suppression de : " + nom);
+    }
+
+    public int taille() {
+        return taille;
+    }
+
+    /** Agrégats en un passage sur la colonne des prix ; les noms sont uniques par construction. */
+    public StockStatistics statistiques() {
+        if (taille == 0)
+            return StockStatistics.vide();
+        double somme = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < taille; i++) {
+            double p = prix[i];
+            somme += p;
+            min = Math.min(min, p);
+            max = Math.max(max, p);
+        }
+        return new StockStatistics(taille, somme, somme / taille, min, max, taille);
+    }
+
+    /** Parcours de la colonne des prix ; seuls les produits retenus sont construits. */
+    public List<Produit> filtrerParPrixMin(double seuil) {
+        List<Produit> resultat = new ArrayList<>();
+        for (int i = 0; i < taille; i++) {
+            if (prix[i] >= seuil)
+                resultat.add(materialiser(i));
+        }
+        return resultat;
+    }
+
+    /** Comme filtrerParPrixMin, sans construire aucun objet. */
+    public int compterParPrixMin(double seuil) {
+        int n = 0;
+        for (int i = 0; i < taille; i++) {
+            if (prix[i] >= seuil)
+                n++;
+        }
+        return n;
+    }
+
+    private int ligne(String nom) throws StockException {
+        return lignes[identifiant(nom)];
+    }
+
+    private int identifiant(String nom) throws StockException {
+        int id = chercher(nom, hacher(nom));
+        if (id < 0)
+            throw new StockException("Produit '" + nom + "' introuvable !");
+        return id;
+    }
+
+    private void ecrire(int ligne, Produit produit) {
+        prix[ligne] = produit.getPrix();
+        versions[ligne] = produit.getVersion();
+        Catalogue catalogue = produit.getCatalogue();
+        catalogueIds[ligne] = catalogue == null ? 0 : catalogue.getId();
+        if (catalogue != null && catalogue.getId() != 0)
+            catalogues.put(catalogue.getId(), catalogue);
+    }
+
+    private Produit materialiser(int ligne) {
+        int id = nomIds[ligne];
+        return produit(new String(arene, debuts[id], longueurs[id]), prix[ligne], catalogueIds[ligne],
+                versions[ligne], catalogues);
+    }
+
+    private static Produit produit(String nom, double prix, int catalogueId, int version,
+            Map<Integer, Catalogue> catalogues) {
+        Produit produit = new Produit(nom, prix);
+        produit.setVersion(version);
+        if (catalogueId != 0)
+            produit.setCatalogue(catalogues.get(catalogueId));
+        return produit;
+    }
+
+    private void agrandirColonnes() {
+        int capacite = prix.length + (prix.length >> 1);
+        prix = Arrays.copyOf(prix, capacite);
+        nomIds = Arrays.copyOf(nomIds, capacite);
+        catalogueIds = Arrays.copyOf(catalogueIds, capacite);
+        versions = Arrays.copyOf(versions, capacite);
+    }
+
+    private int nouvelId() {
+        if (nbIdsLibres > 0)
+            return idsLibres[--nbIdsLibres];
+        if (prochainId == debuts.length) {
+            int capacite = debuts.length + (debuts.length >> 1);
+            debuts = Arrays.copyOf(debuts, capacite);
+            longueurs = Arrays.copyOf(longueurs, capacite);
+            hachages = Arrays.copyOf(hachages, capacite);
+            lignes = Arrays.copyOf(lignes, capacite);
+        }
+        return prochainId++;
+    }
+
+    /**
+     * Copie le nom au bout de l'arène et rend sa position. Si la place manque,
+     * l'arène est d'abord compactée quand la moitié au moins est occupée par
+     * des noms supprimés, sinon agrandie.
+     */
+    private int stockerNom(String nom) {
+        int longueur = nom.length();
+        if (finArene + longueur > arene.length) {
+            if (2 * areneLibre >= finArene)
+                compacterArene(Math.max(arene.length, finArene - areneLibre + longueur));
+            if (finArene + longueur > arene.length)
+                compacterArene(Math.max(arene.length + (arene.length >> 1), finArene - areneLibre + longueur));
+        }
+        int debut = finArene;
+        nom.getChars(0, longueur, arene, debut);
+        finArene += longueur;
+        return debut;
+    }
+
+    /** Recopie les noms en usage bout à bout dans une arène de la capacité donnée. */
+    private void compacterArene(int capacite) {
+        char[] nouvelle = new char[capacite];
+        int fin = 0;
+        for (int id = 0; id < prochainId; id++) {
+            if (longueurs[id] < 0)
+                continue;
+            System.arraycopy(arene, debuts[id], nouvelle, fin, longueurs[id]);
+            debuts[id] = fin;
+            fin += longueurs[id];
+        }
+        arene = nouvelle;
+        finArene = fin;
+        areneLibre = 0;
+    }
+
+    /**
+     * Hachage insensible à la casse, sans allocation : chaque point de code
+     * est ramené à une forme unique, de sorte que deux noms égaux pour
+     * String.CASE_INSENSITIVE_ORDER ont le même hachage.
+     */
+    static int hacher(String nom) {
+        int h = 0;
+        for (int i = 0; i < nom.length();) {
+            int point = nom.codePointAt(i);
+            h = 31 * h + Character.toLowerCase(Character.toUpperCase(point));
+            i += Character.charCount(point);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private int chercher(String nom, int hachage) {
+        int masque = table.length - 1;
+        for (int i = hachage & masque;; i = (i + 1) & masque) {
+            int v = table[i];
+            if (v == 0)
+                return -1;
+            if (hachages[v - 1] == hachage && comparer(v - 1, nom) == 0)
+                return v - 1;
+        }
+    }
+
+    /** Ordre de String.CASE_INSENSITIVE_ORDER entre deux noms de l'arène, point de code par point de code. */
+    private int comparer(int idA, int idB) {
+        int a = debuts[idA];
+        int b = debuts[idB];
+        int finA = a + longueurs[idA];
+        int finB = b + longueurs[idB];
+        while (a < finA && b < finB) {
+            int pointA = Character.codePointAt(arene, a, finA);
+            int pointB = Character.codePointAt(arene, b, finB);
+            int c = comparerPoints(pointA, pointB);
+            if (c != 0)
+                return c;
+            a += Character.charCount(pointA);
+            b += Character.charCount(pointB);
+        }
+        return Boolean.compare(a < finA, b < finB);
+    }
+
+    /** Même ordre, entre un nom de l'arène et un String (0 : égaux). */
+    private int comparer(int id, String nom) {
+        int a = debuts[id];
+        int finA = a + longueurs[id];
+        int i = 0;
+        while (a < finA && i < nom.length()) {
+            int pointA = Character.codePointAt(arene, a, finA);
+            int point = nom.codePointAt(i);
+            int c = comparerPoints(pointA, point);
+            if (c != 0)
+                return c;
+            a += Character.charCount(pointA);
+            i += Character.charCount(point);
+        }
+        return Boolean.compare(a < finA, i < nom.length());
+    }
+
+    /** Règle de String.CASE_INSENSITIVE_ORDER pour un point de code : majuscules, puis minuscules. */
+    static int comparerPoints(int a, int b) {
+        if (a == b)
+            return 0;
+        int majA = Character.toUpperCase(a);
+        int majB = Character.toUpperCase(b);
+        if (majA == majB)
+            return 0;
+        return Character.toLowerCase(majA) - Character.toLowerCase(majB);
+    }
+
+    private void placer(int id) {
+        // Taux de remplissage maximal de 1/2 : les sondages restent courts
+        if (2 * (taille + 1) > table.length)
+            redimensionnerTable();
+        int masque = table.length - 1;
+        int i = hachages[id] & masque;
+        while (table[i] != 0)
+            i = (i + 1) & masque;
+        table[i] = id + 1;
+    }
+
+    private void redimensionnerTable() {
+        int[] ancienne = table;
+        table = new int[ancienne.length * 2];
+        int masque = table.length - 1;
+        for (int v : ancienne) {
+            if (v == 0)
+                continue;
+            int i = hachages[v - 1] & masque;
+            while (table[i] != 0)
+                i = (i + 1) & masque;
+            table[i] = v;
+        }
+    }
+
+    /** Retire l'identifiant de la table en recompactant la suite de sondage qui le suit. */
+    private void retirer(int id) {
+        int masque = table.length - 1;
+        int trou = hachages[id] & masque;
+        while (table[trou] != id + 1)
+            trou = (trou + 1) & masque;
+        for (int j = (trou + 1) & masque; table[j] != 0; j = (j + 1) & masque) {
+            int ideal = hachages[table[j] - 1] & masque;
+            // L'entrée en j peut combler le trou si sa case idéale n'est pas entre le trou et j
+            boolean entre = trou <= j ? (trou < ideal && ideal <= j) : (trou < ideal || ideal <= j);
+            if (!entre) {
+                table[trou] = table[j];
+                trou = j;
+            }
+        }
+        table[trou] = 0;
+        areneLibre += longueurs[id];
+        longueurs[id] = -1;
+        if (nbIdsLibres == idsLibres.length)
+            idsLibres = Arrays.copyOf(idsLibres, nbIdsLibres * 2);
+        idsLibres[nbIdsLibres++] = id;
+    }
+
+    /** Copie figée des colonnes et de l'arène ; un Produit n'est construit qu'à l'appel de get. */
+    private static final class VueProduits extends AbstractList<Produit> implements RandomAccess {
+        private final char[] arene;
+        private final int[] debuts;
+        private final int[] longueurs;
+        private final double[] prix;
+        private final int[] catalogueIds;
+        private final int[] versions;
+        private final Map<Integer, Catalogue> catalogues;
+
+        VueProduits(char[] arene, int[] debuts, int[] longueurs, double[] prix, int[] catalogueIds, int[] versions,
+                Map<Integer, Catalogue> catalogues) {
+            this.arene = arene;
+            this.debuts = debuts;
+            this.longueurs = longueurs;
+            this.prix = prix;
+            this.catalogueIds = catalogueIds;
+            this.versions = versions;
+            this.catalogues = catalogues;
+        }
+
+        @Override
+        public Produit get(int index) {
+            return produit(new String(arene, debuts[index], longueurs[index]), prix[index], catalogueIds[index],
+                    versions[index], catalogues);
+        }
+
+        @Override
+        public int size() {
+            return prix.length;
+        }
+    }
+}
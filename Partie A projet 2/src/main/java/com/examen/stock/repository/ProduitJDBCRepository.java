@@ -1,19 +1,27 @@
 package com.examen.stock.repository;
 
+import com.examen.stock.dao.Page;
+import com.examen.stock.dao.ProduitDaoImpl;
+import com.examen.stock.dao.RapportBatch;
+import com.examen.stock.dao.UnitOfWork;
 import com.examen.stock.exception.StockException;
 import com.examen.stock.model.Produit;
-import com.examen.stock.util.DatabaseConnection;
+import com.examen.stock.model.StockStatistics;
 
 import java.sql.*;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public class ProduitJDBCRepository implements Repository<Produit> {
+    // Lectures, mises à jour versionnées et opérations en masse réutilisent le DAO JDBC
+    private final ProduitDaoImpl dao = new ProduitDaoImpl();
 
     @Override
     public void ajouter(Produit produit) {
         String sql = "INSERT INTO produits (nom, prix) VALUES (?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.ouvrirConnexion();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, produit.getNom());
             pstmt.setDouble(2, produit.getPrix());
@@ -24,59 +32,53 @@ public class ProduitJDBCRepository implements Repository<Produit> {
         }
     }
 
+    @Override
+    public RapportBatch ajouterTous(Collection<Produit> produits) {
+        return dao.createAll(produits);
+    }
+
     @Override
     public List<Produit> listerTout() {
-        List<Produit> produits = new ArrayList<>();
-        String sql = "SELECT nom, prix FROM produits";
-        try (Connection conn = DatabaseConnection.getConnection();
-                Statement stmt = conn.createStatement();
-                ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                produits.add(new Produit(rs.getString("nom"), rs.getDouble("prix")));
-            }
-        } catch (SQLException e) {
-            System.err.println("Erreur JDBC lors du listing : " + e.getMessage());
-        }
-        return produits;
+        return dao.readAll();
+    }
+
+    @Override
+    public Stream<Produit> streamTout() {
+        return dao.streamAll();
+    }
+
+    @Override
+    public Page<Produit> listerPage(String apresNom, int limite) {
+        return dao.readPage(apresNom, limite);
     }
 
     @Override
     public Produit trouverParNom(String nom) throws StockException {
-        String sql = "SELECT nom, prix FROM produits WHERE nom = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, nom);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return new Produit(rs.getString("nom"), rs.getDouble("prix"));
-                }
-            }
-        } catch (SQLException e) {
-            System.err.println("Erreur JDBC lors de la recherche : " + e.getMessage());
-        }
-        throw new StockException("Produit '" + nom + "' introuvable dans la base de données !");
+        return dao.readByName(nom);
+    }
+
+    @Override
+    public Map<String, Produit> trouverParNoms(Collection<String> noms) {
+        return dao.readByNames(noms);
+    }
+
+    public StockStatistics statistiques() {
+        return dao.statistiques();
     }
 
+    /**
+     * Mise à jour versionnée : échoue par {@link com.examen.stock.exception.ConflitVersionException}
+     * si la ligne a changé depuis la lecture du produit.
+     */
     @Override
     public void mettreAJour(Produit produit) throws StockException {
-        String sql = "UPDATE produits SET prix = ? WHERE nom = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setDouble(1, produit.getPrix());
-            pstmt.setString(2, produit.getNom());
-            int rows = pstmt.executeUpdate();
-            if (rows == 0)
-                throw new StockException("Mise à jour impossible : " + produit.getNom() + " introuvable.");
-            System.out.println("JDBC: Mise à jour de " + produit.getNom());
-        } catch (SQLException e) {
-            System.err.println("Erreur JDBC lors de la maj : " + e.getMessage());
-        }
+        dao.update(produit);
     }
 
     @Override
     public void supprimer(String nom) throws StockException {
         String sql = "DELETE FROM produits WHERE nom = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = UnitOfWork.ouvrirConnexion();
                 PreparedStatement pstmt = conn.prepareStatement(sql)) {
             pstmt.setString(1, nom);
             int rows = pstmt.executeUpdate();
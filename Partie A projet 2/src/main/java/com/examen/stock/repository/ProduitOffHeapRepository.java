@@ -0,0 +1,650 @@
+package com.examen.stock.repository;
+
+import com.examen.stock.dao.Page;
+import com.examen.stock.dao.RapportBatch;
+import com.examen.stock.exception.StockException;
+import com.examen.stock.model.Catalogue;
+import com.examen.stock.model.Produit;
+import com.examen.stock.model.StockStatistics;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Inventaire mémoire hors du tas Java : chaque produit est un
+ * enregistrement de taille fixe dans des segments de ByteBuffer directs,
+ * l'index nom -> enregistrement est une table à adressage ouvert elle
+ * aussi hors tas, comme la permutation des numéros d'enregistrement triés
+ * par nom qui sert à la pagination (4 octets par produit, allouée au
+ * premier listerPage). Le tas ne porte que les références aux tampons et
+ * les catalogues, quel que soit le nombre de produits : hachage, égalité,
+ * tri (tas binaire sur place) et recherche dichotomique lisent l'UTF-8
+ * stocké sans construire de String. Seuls les Produit rendus sont alloués.
+ *
+ * Enregistrement (256 octets) : prix (double), hachage du nom (int),
+ * identifiant de catalogue (int, 0 = aucun), version (int), longueur du
+ * nom (short, -1 = enregistrement libre) puis le nom en UTF-8
+ * (TAILLE_NOM_MAX octets au plus). Un enregistrement supprimé rejoint une
+ * liste chaînée d'enregistrements libres réutilisés par les ajouts ;
+ * {@link #compacter()} regroupe les enregistrements vivants et rend les
+ * segments devenus vides, {@link #close()} rend toute la mémoire.
+ *
+ * Les Produit rendus sont des copies construites à la demande. Non
+ * synchronisé ; le stock ne doit plus être utilisé après close().
+ */
+public class ProduitOffHeapRepository implements Repository<Produit>, AutoCloseable {
+    private static final int TAILLE_ENREGISTREMENT = 256;
+    private static final int OFFSET_PRIX = 0;
+    private static final int OFFSET_HACHAGE = 8; // ou suivant libre pour un enregistrement libre
+    private static final int OFFSET_CATALOGUE = 12;
+    private static final int OFFSET_VERSION = 16;
+    private static final int OFFSET_LONGUEUR = 20;
+    private static final int OFFSET_NOM = 22;
+    public static final int TAILLE_NOM_MAX = TAILLE_ENREGISTREMENT - OFFSET_NOM;
+
+    // Segments de 4096 enregistrements (1 Mo)
+    private static final int DECALAGE_SEGMENT = 12;
+    private static final int ENREGISTREMENTS_PAR_SEGMENT = 1 << DECALAGE_SEGMENT;
+    private static final int MASQUE_SEGMENT = ENREGISTREMENTS_PAR_SEGMENT - 1;
+    private static final int CAPACITE_INDEX_INITIALE = 2 * ENREGISTREMENTS_PAR_SEGMENT;
+
+    // Libération immédiate d'un tampon direct (sinon rendu au passage du GC)
+    private static final Object UNSAFE;
+    private static final Method LIBERER_TAMPON;
+
+    static {
+        Object unsafe = null;
+        Method liberer = null;
+        try {
+            Class<?> classe = Class.forName("sun.misc.Unsafe");
+            Field instance = classe.getDeclaredField("theUnsafe");
+            instance.setAccessible(true);
+            unsafe = instance.get(null);
+            liberer = classe.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.err.println("Stock hors tas : libération différée au GC (" + e.getMessage() + ")");
+        }
+        UNSAFE = unsafe;
+        LIBERER_TAMPON = liberer;
+    }
+
+    private ByteBuffer[] segments = new ByteBuffer[16];
+    private int nbSegments;
+    // Enregistrements déjà attribués (vivants ou libres) : [0, hauteur)
+    private int hauteur;
+    private int taille;
+    private int premierLibre = -1;
+
+    // Index : cases int, 0 = vide, sinon numéro d'enregistrement + 1
+    private ByteBuffer index = ByteBuffer.allocateDirect(4 * CAPACITE_INDEX_INITIALE);
+    private int capaciteIndex = CAPACITE_INDEX_INITIALE;
+
+    private final Map<Integer, Catalogue> catalogues = new HashMap<>();
+
+    // Numéros d'enregistrement triés par nom (cases int, les taille premières servent) ;
+    // à refaire après ajout, suppression ou compactage
+    private ByteBuffer permutation;
+    private int capacitePermutation;
+    private boolean ordreValide = false;
+
+    /**
+     * Un nom déjà présent, sans distinction de casse, est refusé comme dans
+     * GestionnaireStock : passer par mettreAJour pour le modifier.
+     *
+     * @throws IllegalArgumentException si le nom est déjà présent ou dépasse
+     *         TAILLE_NOM_MAX octets en UTF-8
+     */
+    @Override
+    public void ajouter(Produit produit) {
+        if (!inserer(produit))
+            throw new IllegalArgumentException("Ajout refusé : " + produit.getNom() + " existe déjà.");
+        System.out.println("Ajout de : " + produit.getNom());
+    }
+
+    /**
+     * Un nom déjà présent ou trop long n'interrompt pas le lot : il est
+     * compté en échec d'un élément, à sa position dans la collection.
+     */
+    @Override
+    public RapportBatch ajouterTous(Collection<Produit> produits) {
+        RapportBatch rapport = new RapportBatch();
+        int ajoutes = 0;
+        int position = 0;
+        for (Produit produit : produits) {
+            try {
+                if (inserer(produit))
+                    ajoutes++;
+                else
+                    rapport.ajouterEchec(position, 1, "Ajout refusé : " + produit.getNom() + " existe déjà.");
+            } catch (IllegalArgumentException e) {
+                rapport.ajouterEchec(position, 1, e.getMessage());
+            }
+            position++;
+        }
+        rapport.ajouterInserees(ajoutes);
+        System.out.println("Ajout en lot de " + ajoutes + " éléments (" + (produits.size() - ajoutes) + " refusés)");
+        return rapport;
+    }
+
+    /** @return false, sans rien écrire, si un enregistrement de même nom existe déjà */
+    private boolean inserer(Produit produit) {
+        String nom = produit.getNom();
+        byte[] octets = encoder(nom);
+        int hachage = ProduitColonnaireRepository.hacher(nom);
+        if (chercher(nom, hachage) >= 0)
+            return false;
+        if (2 * (taille + 1) > capaciteIndex)
+            redimensionnerIndex();
+        int numero = nouvelEnregistrement();
+        ordreValide = false;
+        ByteBuffer segment = segments[numero >>> DECALAGE_SEGMENT];
+        int base = (numero & MASQUE_SEGMENT) * TAILLE_ENREGISTREMENT;
+        segment.putInt(base + OFFSET_HACHAGE, hachage);
+        ecrireNom(numero, octets);
+        ecrire(numero, produit);
+        placer(numero, hachage);
+        taille++;
+        return true;
+    }
+
+    @Override
+    public List<Produit> listerTout() {
+        List<Produit> tous = new ArrayList<>(taille);
+        for (int numero = 0; numero < hauteur; numero++) {
+            if (estVivant(numero))
+                tous.add(materialiser(numero));
+        }
+        return tous;
+    }
+
+    /** Parcours des segments sans liste intermédiaire ; le stock ne doit pas changer pendant le flux. */
+    @Override
+    public Stream<Produit> streamTout() {
+        Spliterator<Produit> enregistrements = new Spliterators.AbstractSpliterator<Produit>(taille,
+                Spliterator.NONNULL | Spliterator.SIZED) {
+            private int numero = 0;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Produit> action) {
+                while (numero < hauteur) {
+                    int courant = numero++;
+                    if (estVivant(courant)) {
+                        action.accept(materialiser(courant));
+                        return true;
+                    }
+                }
+                return false;
+            }
+        };
+        return StreamSupport.stream(enregistrements, false);
+    }
+
+    /** Recherche dichotomique dans les numéros triés : O(log n + limite) une fois le tri fait. */
+    @Override
+    public Page<Produit> listerPage(String apresNom, int limite) {
+        trierSiBesoin();
+        int debut = apresNom == null ? 0 : premierApres(apresNom);
+        int fin = (int) Math.min(taille, (long) debut + limite + 1);
+        List<Produit> lus = new ArrayList<>(fin - debut);
+        for (int i = debut; i < fin; i++)
+            lus.add(materialiser(permutation.getInt(4 * i)));
+        return Page.depuis(lus, limite, Produit::getNom);
+    }
+
+    /**
+     * Range les numéros vivants dans la permutation hors tas et les trie par
+     * nom avec un tas binaire sur place : O(n log n), sans tableau auxiliaire.
+     */
+    private void trierSiBesoin() {
+        if (ordreValide)
+            return;
+        if (capacitePermutation < taille) {
+            liberer(permutation);
+            capacitePermutation = Math.max(taille + (taille >> 1), ENREGISTREMENTS_PAR_SEGMENT);
+            permutation = ByteBuffer.allocateDirect(4 * capacitePermutation);
+        }
+        int n = 0;
+        for (int numero = 0; numero < hauteur; numero++) {
+            if (estVivant(numero))
+                permutation.putInt(4 * n++, numero);
+        }
+        for (int i = n / 2 - 1; i >= 0; i--)
+            tamiser(i, n);
+        for (int fin = n - 1; fin > 0; fin--) {
+            int plusGrand = permutation.getInt(0);
+            permutation.putInt(0, permutation.getInt(4 * fin));
+            permutation.putInt(4 * fin, plusGrand);
+            tamiser(0, fin);
+        }
+        ordreValide = true;
+    }
+
+    /** Fait descendre la case i du tas [0, n) jusqu'à sa place. */
+    private void tamiser(int i, int n) {
+        int numero = permutation.getInt(4 * i);
+        while (2 * i + 1 < n) {
+            int enfant = 2 * i + 1;
+            int numeroEnfant = permutation.getInt(4 * enfant);
+            if (enfant + 1 < n) {
+                int droit = permutation.getInt(4 * (enfant + 1));
+                if (comparer(droit, numeroEnfant) > 0) {
+                    enfant++;
+                    numeroEnfant = droit;
+                }
+            }
+            if (comparer(numeroEnfant, numero) <= 0)
+                break;
+            permutation.putInt(4 * i, numeroEnfant);
+            i = enfant;
+        }
+        permutation.putInt(4 * i, numero);
+    }
+
+    /** Position du premier nom strictement après apresNom. */
+    private int premierApres(String apresNom) {
+        int bas = 0;
+        int haut = taille;
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (comparer(permutation.getInt(4 * milieu), apresNom) <= 0)
+                bas = milieu + 1;
+            else
+                haut = milieu;
+        }
+        return bas;
+    }
+
+    @Override
+    public Produit trouverParNom(String nom) throws StockException {
+        return materialiser(numero(nom));
+    }
+
+    @Override
+    public Map<String, Produit> trouverParNoms(Collection<String> noms) {
+        Map<String, Produit> trouves = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (String nom : noms) {
+            int numero = chercher(nom, ProduitColonnaireRepository.hacher(nom));
+            if (numero >= 0) {
+                Produit produit = materialiser(numero);
+                trouves.putIfAbsent(produit.getNom(), produit);
+            }
+        }
+        return trouves;
+    }
+
+    /**
+     * Réécrit prix, catalogue et version ; le nom prend la casse du produit
+     * reçu, comme dans GestionnaireStock (même hachage, même rang).
+     *
+     * @throws IllegalArgumentException si cette casse dépasse TAILLE_NOM_MAX octets en UTF-8
+     */
+    @Override
+    public void mettreAJour(Produit produit) throws StockException {
+        int numero = numero(produit.getNom());
+        ecrireNom(numero, encoder(produit.getNom()));
+        ecrire(numero, produit);
+        System.out.println("Maj de : " + produit.getNom());
+    }
+
+    @Override
+    public void supprimer(String nom) throws StockException {
+        int numero = numero(nom);
+        retirerDeLIndex(numero);
+        ordreValide = false;
+        ByteBuffer segment = segments[numero >>> DECALAGE_SEGMENT];
+        int base = (numero & MASQUE_SEGMENT) * TAILLE_ENREGISTREMENT;
+        segment.putShort(base + OFFSET_LONGUEUR, (short) -1);
+        segment.putInt(base + OFFSET_HACHAGE, premierLibre);
+        premierLibre = numero;
+        taille--;
+        System.out.println("Suppression de : " + nom);
+    }
+
+    public int taille() {
+        return taille;
+    }
+
+    /** Agrégats en un passage sur les enregistrements, sans construire de Produit. */
+    public StockStatistics statistiques() {
+        if (taille == 0)
+            return StockStatistics.vide();
+        double somme = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int numero = 0; numero < hauteur; numero++) {
+            if (!estVivant(numero))
+                continue;
+            double p = prix(numero);
+            somme += p;
+            min = Math.min(min, p);
+            max = Math.max(max, p);
+        }
+        return new StockStatistics(taille, somme, somme / taille, min, max, taille);
+    }
+
+    /** Seuls les produits retenus sont construits sur le tas. */
+    public List<Produit> filtrerParPrixMin(double seuil) {
+        List<Produit> resultat = new ArrayList<>();
+        for (int numero = 0; numero < hauteur; numero++) {
+            if (estVivant(numero) && prix(numero) >= seuil)
+                resultat.add(materialiser(numero));
+        }
+        return resultat;
+    }
+
+    /**
+     * Déplace les derniers enregistrements vivants dans les trous laissés par
+     * les suppressions, puis rend les segments situés au-delà. Retourne le
+     * nombre d'octets hors tas libérés.
+     */
+    public long compacter() {
+        long avant = octetsHorsTas();
+        int bas = 0;
+        int haut = hauteur - 1;
+        while (true) {
+            while (bas < haut && estVivant(bas))
+                bas++;
+            while (haut > bas && !estVivant(haut))
+                haut--;
+            if (bas >= haut)
+                break;
+            deplacer(haut, bas);
+            bas++;
+            haut--;
+        }
+        hauteur = taille;
+        premierLibre = -1;
+        ordreValide = false;
+        int segmentsUtiles = (hauteur + MASQUE_SEGMENT) >>> DECALAGE_SEGMENT;
+        for (int i = segmentsUtiles; i < nbSegments; i++) {
+            liberer(segments[i]);
+            segments[i] = null;
+        }
+        nbSegments = segmentsUtiles;
+        long liberes = avant - octetsHorsTas();
+        System.out.println("Stock hors tas compacté : " + liberes / 1024 + " Ko rendus, " + metriques());
+        return liberes;
+    }
+
+    /** Rend immédiatement toute la mémoire hors tas. */
+    @Override
+    public void close() {
+        for (int i = 0; i < nbSegments; i++) {
+            liberer(segments[i]);
+            segments[i] = null;
+        }
+        liberer(index);
+        index = null;
+        liberer(permutation);
+        permutation = null;
+        capacitePermutation = 0;
+        nbSegments = 0;
+        hauteur = 0;
+        taille = 0;
+        premierLibre = -1;
+        ordreValide = false;
+        catalogues.clear();
+    }
+
+    /** Octets hors tas réservés : segments alloués, index et permutation de pagination. */
+    public long octetsHorsTas() {
+        return (long) nbSegments * ENREGISTREMENTS_PAR_SEGMENT * TAILLE_ENREGISTREMENT
+                + (index == null ? 0 : 4L * capaciteIndex) + 4L * capacitePermutation;
+    }
+
+    /** Octets hors tas occupés par des produits vivants. */
+    public long octetsUtilises() {
+        return (long) taille * TAILLE_ENREGISTREMENT;
+    }
+
+    public String metriques() {
+        long reserves = octetsHorsTas();
+        return String.format("%d produits, %d Ko utilisés / %d Ko réservés (%d segments, index %d cases, "
+                + "%d enregistrements libres)", taille, octetsUtilises() / 1024, reserves / 1024, nbSegments,
+                capaciteIndex, hauteur - taille);
+    }
+
+    private int numero(String nom) throws StockException {
+        int numero = chercher(nom, ProduitColonnaireRepository.hacher(nom));
+        if (numero < 0)
+            throw new StockException("Produit '" + nom + "' introuvable !");
+        return numero;
+    }
+
+    private int nouvelEnregistrement() {
+        if (premierLibre >= 0) {
+            int numero = premierLibre;
+            premierLibre = segments[numero >>> DECALAGE_SEGMENT]
+                    .getInt((numero & MASQUE_SEGMENT) * TAILLE_ENREGISTREMENT + OFFSET_HACHAGE);
+            return numero;
+        }
+        if (hauteur == nbSegments * ENREGISTREMENTS_PAR_SEGMENT) {
+            if (nbSegments == segments.length)
+                segments = Arrays.copyOf(segments, nbSegments * 2);
+            segments[nbSegments++] = ByteBuffer.allocateDirect(ENREGISTREMENTS_PAR_SEGMENT * TAILLE_ENREGISTREMENT);
+        }
+        return hauteur++;
+    }
+
+    private static byte[] encoder(String nom) {
+        byte[] octets = nom.getBytes(StandardCharsets.UTF_8);
+        if (octets.length > TAILLE_NOM_MAX)
+            throw new IllegalArgumentException("Nom trop long pour le stock hors tas (" + octets.length
+                    + " octets, " + TAILLE_NOM_MAX + " au plus) : " + nom);
+        return octets;
+    }
+
+    private void ecrireNom(int numero, byte[] octets) {
+        ByteBuffer segment = segments[numero >>> DECALAGE_SEGMENT];
+        int base = (numero & MASQUE_SEGMENT) * TAILLE_ENREGISTREMENT;
+        segment.putShort(base + OFFSET_LONGUEUR, (short) octets.length);
+        segment.put(base + OFFSET_NOM, octets);
+    }
+
+    private void ecrire(int numero, Produit produit) {
+        ByteBuffer segment = segments[numero >>> DECALAGE_SEGMENT];
+        int base = (numero & MASQUE_SEGMENT) * TAILLE_ENREGISTREMENT;
+        Catalogue catalogue = produit.getCatalogue();
+        int catalogueId = catalogue == null ? 0 : catalogue.getId();
+        if (catalogueId != 0)
+            catalogues.put(catalogueId, catalogue);
+        segment.putDouble(base + OFFSET_PRIX, produit.getPrix());
+        segment.putInt(base + OFFSET_CATALOGUE, catalogueId);
+        segment.putInt(base + OFFSET_VERSION, produit.getVersion());
+    }
+
+    /** Copie l'enregistrement source dans l'emplacement libre cible et met l'index à jour. */
+    private void deplacer(int source, int cible) {
+        ByteBuffer de = segments[source >>> DECALAGE_SEGMENT];
+        ByteBuffer vers = segments[cible >>> DECALAGE_SEGMENT];
+        int baseSource = (source & MASQUE_SEGMENT) * TAILLE_ENREGISTREMENT;
+        int baseCible = (cible & MASQUE_SEGMENT) * TAILLE_ENREGISTREMENT;
+        vers.put(baseCible, de, baseSource, TAILLE_ENREGISTREMENT);
+        int masque = capaciteIndex - 1;
+        int i = hachage(cible) & masque;
+        while (index.getInt(4 * i) != source + 1)
+            i = (i + 1) & masque;
+        index.putInt(4 * i, cible + 1);
+        de.putShort(baseSource + OFFSET_LONGUEUR, (short) -1);
+    }
+
+    private boolean estVivant(int numero) {
+        return segments[numero >>> DECALAGE_SEGMENT]
+                .getShort((numero & MASQUE_SEGMENT) * TAILLE_ENREGISTREMENT + OFFSET_LONGUEUR) >= 0;
+    }
+
+    private double prix(int numero) {
+        return segments[numero >>> DECALAGE_SEGMENT]
+                .getDouble((numero & MASQUE_SEGMENT) * TAILLE_ENREGISTREMENT + OFFSET_PRIX);
+    }
+
+    private int hachage(int numero) {
+        return segments[numero >>> DECALAGE_SEGMENT]
+                .getInt((numero & MASQUE_SEGMENT) * TAILLE_ENREGISTREMENT + OFFSET_HACHAGE);
+    }
+
+    private String nom(int numero) {
+        ByteBuffer segment = segments[numero >>> DECALAGE_SEGMENT];
+        int base = (numero & MASQUE_SEGMENT) * TAILLE_ENREGISTREMENT;
+        byte[] octets = new byte[segment.getShort(base + OFFSET_LONGUEUR)];
+        segment.get(base + OFFSET_NOM, octets);
+        return new String(octets, StandardCharsets.UTF_8);
+    }
+
+    private Produit materialiser(int numero) {
+        ByteBuffer segment = segments[numero >>> DECALAGE_SEGMENT];
+        int base = (numero & MASQUE_SEGMENT) * TAILLE_ENREGISTREMENT;
+        Produit produit = new Produit(nom(numero), segment.getDouble(base + OFFSET_PRIX));
+        produit.setVersion(segment.getInt(base + OFFSET_VERSION));
+        int catalogueId = segment.getInt(base + OFFSET_CATALOGUE);
+        if (catalogueId != 0)
+            produit.setCatalogue(catalogues.get(catalogueId));
+        return produit;
+    }
+
+    private int chercher(String nom, int hachage) {
+        int masque = capaciteIndex - 1;
+        for (int i = hachage & masque;; i = (i + 1) & masque) {
+            int v = index.getInt(4 * i);
+            if (v == 0)
+                return -1;
+            if (hachage(v - 1) == hachage && comparer(v - 1, nom) == 0)
+                return v - 1;
+        }
+    }
+
+    /**
+     * Ordre de String.CASE_INSENSITIVE_ORDER entre deux noms stockés, sans
+     * construire de String : l'UTF-8 des deux enregistrements est décodé au
+     * fil de l'eau et comparé point de code par point de code, avec le même
+     * repliement que le hachage.
+     */
+    private int comparer(int numeroA, int numeroB) {
+        ByteBuffer segmentA = segments[numeroA >>> DECALAGE_SEGMENT];
+        ByteBuffer segmentB = segments[numeroB >>> DECALAGE_SEGMENT];
+        int baseA = (numeroA & MASQUE_SEGMENT) * TAILLE_ENREGISTREMENT;
+        int baseB = (numeroB & MASQUE_SEGMENT) * TAILLE_ENREGISTREMENT;
+        int a = baseA + OFFSET_NOM;
+        int b = baseB + OFFSET_NOM;
+        int finA = a + segmentA.getShort(baseA + OFFSET_LONGUEUR);
+        int finB = b + segmentB.getShort(baseB + OFFSET_LONGUEUR);
+        while (a < finA && b < finB) {
+            int c = ProduitColonnaireRepository.comparerPoints(pointDeCode(segmentA, a), pointDeCode(segmentB, b));
+            if (c != 0)
+                return c;
+            a += longueurSequence(segmentA.get(a));
+            b += longueurSequence(segmentB.get(b));
+        }
+        return Boolean.compare(a < finA, b < finB);
+    }
+
+    /** Même ordre, entre un nom stocké et un String (0 : égaux). */
+    private int comparer(int numero, String nom) {
+        ByteBuffer segment = segments[numero >>> DECALAGE_SEGMENT];
+        int base = (numero & MASQUE_SEGMENT) * TAILLE_ENREGISTREMENT;
+        int position = base + OFFSET_NOM;
+        int fin = position + segment.getShort(base + OFFSET_LONGUEUR);
+        int i = 0;
+        while (position < fin && i < nom.length()) {
+            int point = nom.codePointAt(i);
+            int c = ProduitColonnaireRepository.comparerPoints(pointDeCode(segment, position), point);
+            if (c != 0)
+                return c;
+            position += longueurSequence(segment.get(position));
+            i += Character.charCount(point);
+        }
+        return Boolean.compare(position < fin, i < nom.length());
+    }
+
+    /** Longueur de la séquence UTF-8 d'après son premier octet. */
+    private static int longueurSequence(byte premier) {
+        if (premier >= 0)
+            return 1;
+        if ((premier & 0xE0) == 0xC0)
+            return 2;
+        if ((premier & 0xF0) == 0xE0)
+            return 3;
+        return 4;
+    }
+
+    /** Point de code de la séquence UTF-8 qui commence à position (écrite par getBytes, donc valide). */
+    private static int pointDeCode(ByteBuffer segment, int position) {
+        byte b = segment.get(position);
+        switch (longueurSequence(b)) {
+            case 1:
+                return b;
+            case 2:
+                return (b & 0x1F) << 6 | segment.get(position + 1) & 0x3F;
+            case 3:
+                return (b & 0x0F) << 12 | (segment.get(position + 1) & 0x3F) << 6 | segment.get(position + 2) & 0x3F;
+            default:
+                return (b & 0x07) << 18 | (segment.get(position + 1) & 0x3F) << 12
+                        | (segment.get(position + 2) & 0x3F) << 6 | segment.get(position + 3) & 0x3F;
+        }
+    }
+
+    private void placer(int numero, int hachage) {
+        int masque = capaciteIndex - 1;
+        int i = hachage & masque;
+        while (index.getInt(4 * i) != 0)
+            i = (i + 1) & masque;
+        index.putInt(4 * i, numero + 1);
+    }
+
+    private void redimensionnerIndex() {
+        ByteBuffer ancien = index;
+        int ancienneCapacite = capaciteIndex;
+        capaciteIndex *= 2;
+        index = ByteBuffer.allocateDirect(4 * capaciteIndex);
+        for (int i = 0; i < ancienneCapacite; i++) {
+            int v = ancien.getInt(4 * i);
+            if (v != 0)
+                placer(v - 1, hachage(v - 1));
+        }
+        liberer(ancien);
+    }
+
+    /** Retire l'enregistrement de l'index en recompactant la suite de sondage qui le suit. */
+    private void retirerDeLIndex(int numero) {
+        int masque = capaciteIndex - 1;
+        int trou = hachage(numero) & masque;
+        while (index.getInt(4 * trou) != numero + 1)
+            trou = (trou + 1) & masque;
+        for (int j = (trou + 1) & masque;; j = (j + 1) & masque) {
+            int v = index.getInt(4 * j);
+            if (v == 0)
+                break;
+            int ideal = hachage(v - 1) & masque;
+            boolean entre = trou <= j ? (trou < ideal && ideal <= j) : (trou < ideal || ideal <= j);
+            if (!entre) {
+                index.putInt(4 * trou, v);
+                trou = j;
+            }
+        }
+        index.putInt(4 * trou, 0);
+    }
+
+    private static void liberer(ByteBuffer tampon) {
+        if (tampon == null || LIBERER_TAMPON == null)
+            return;
+        try {
+            LIBERER_TAMPON.invoke(UNSAFE, tampon);
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Stock hors tas : libération impossible : " + e.getMessage());
+        }
+    }
+}
@@ -1,15 +1,31 @@
 package com.examen.stock.repository;
 
+import com.examen.stock.dao.Page;
+import com.examen.stock.dao.RapportBatch;
 import com.examen.stock.exception.StockException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public interface Repository<T> {
     void ajouter(T element);
 
+    RapportBatch ajouterTous(Collection<T> elements);
+
     List<T> listerTout();
 
+    /** Parcours en flux de l'inventaire ; le flux doit être fermé après usage. */
+    default Stream<T> streamTout() {
+        return listerTout().stream();
+    }
+
+    Page<T> listerPage(String apresNom, int limite);
+
     T trouverParNom(String nom) throws StockException;
 
+    Map<String, T> trouverParNoms(Collection<String> noms);
+
     void mettreAJour(T element) throws StockException;
 
     void supprimer(String nom) throws StockException;
@@ -1,18 +1,22 @@
 package com.examen.stock.service;
 
-import com.examen.stock.dao.IDao;
+import com.examen.stock.dao.ICatalogueDao;
+import com.examen.stock.dao.UnitOfWork;
 import com.examen.stock.exception.StockException;
 import com.examen.stock.model.Catalogue;
+import com.examen.stock.model.CatalogueResume;
+import com.examen.stock.model.Produit;
+import java.util.Collection;
 import java.util.List;
 
 public class CatalogueService {
-    private IDao<Catalogue> dao;
+    private ICatalogueDao dao;
 
-    public CatalogueService(IDao<Catalogue> dao) {
+    public CatalogueService(ICatalogueDao dao) {
         this.dao = dao;
     }
 
-    public void creerCatalogue(Catalogue c) {
+    public void creerCatalogue(Catalogue c) throws StockException {
         dao.create(c);
     }
 
@@ -20,16 +24,40 @@ public class CatalogueService {
         return dao.readAll();
     }
 
+    public List<CatalogueResume> listerResumes() {
+        return dao.readResumes();
+    }
+
+    /**
+     * Rattache des produits nouveaux à un catalogue existant : lecture et
+     * écriture dans une seule unité de travail, donc une session, une
+     * transaction et un flush groupé des INSERT.
+     */
+    public Catalogue ajouterProduits(String nomCatalogue, Collection<Produit> produits) throws StockException {
+        return UnitOfWork.executer(() -> {
+            Catalogue c = dao.readByName(nomCatalogue);
+            produits.forEach(c::ajouterProduit);
+            dao.update(c);
+            return c;
+        });
+    }
+
     public Catalogue chercherParNom(String nom) throws StockException {
         return dao.readByName(nom);
     }
 
-    public void supprimerCatalogue(String nom) throws StockException {
-        dao.delete(nom);
+    /** Le catalogue avec tous ses produits, en une requête. */
+    public Catalogue detailCatalogue(String nom) throws StockException {
+        return dao.readDetail(nom);
+    }
+
+    /** Supprime le catalogue et ses produits en masse ; retourne le nombre de produits supprimés. */
+    public int supprimerCatalogue(String nom) throws StockException {
+        return dao.deleteEnMasse(nom);
     }
 
     public void afficherTousLesCatalogues() {
-        List<Catalogue> catalogues = dao.readAll();
+        List<CatalogueResume> catalogues = dao.readResumes();
         if (catalogues.isEmpty()) {
             System.out.println("Service: Aucun catalogue disponible.");
             return;
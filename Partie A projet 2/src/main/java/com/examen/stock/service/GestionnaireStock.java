@@ -1,54 +1,199 @@
 package com.examen.stock.service;
 
+import com.examen.stock.dao.Page;
+import com.examen.stock.dao.RapportBatch;
 import com.examen.stock.exception.StockException;
 import com.examen.stock.model.Produit;
+import com.examen.stock.model.StockStatistics;
 import com.examen.stock.repository.Repository;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.OptionalDouble;
+import java.util.TreeMap;
 
+/**
+ * Inventaire en mémoire indexé par nom sans distinction de casse (comme la
+ * clé unique de la base) : recherche, mise à jour et suppression en temps
+ * constant, parcours dans l'ordre d'ajout. Deux index secondaires, tenus à
+ * jour par chaque écriture : par nom trié pour la pagination, par prix pour
+ * les filtres de prix, classements et percentiles en temps logarithmique.
+ */
 public class GestionnaireStock<T extends Produit> implements Repository<T> {
-    private List<T> inventaire = new ArrayList<>();
+    // Même ordre que la collation insensible à la casse de la base
+    private static final Comparator<String> ORDRE_NOM = String.CASE_INSENSITIVE_ORDER;
 
+    private Map<String, T> inventaire = new LinkedHashMap<>();
+    private final NavigableMap<String, T> parNom = new TreeMap<>(ORDRE_NOM);
+    private final IndexPrix<T> parPrix = new IndexPrix<>();
+
+    /**
+     * Clé de l'index : chaque caractère ramené à une forme unique, de sorte
+     * que deux noms ont la même clé exactement quand equalsIgnoreCase est vrai.
+     */
+    static String cle(String nom) {
+        StringBuilder cle = null;
+        for (int i = 0; i < nom.length(); i++) {
+            char c = nom.charAt(i);
+            char plie = Character.toLowerCase(Character.toUpperCase(c));
+            if (plie != c && cle == null)
+                cle = new StringBuilder(nom.length()).append(nom, 0, i);
+            if (cle != null)
+                cle.append(plie);
+        }
+        return cle == null ? nom : cle.toString();
+    }
+
+    /**
+     * Un nom déjà présent (sans distinction de casse) est refusé, comme par la
+     * clé unique de la base, et l'inventaire reste inchangé : un produit
+     * existant se modifie par {@link #mettreAJour}.
+     *
+     * @throws IllegalArgumentException si le nom est déjà présent
+     */
     @Override
     public void ajouter(T element) {
-        inventaire.add(element);
+        String cle = cle(element.getNom());
+        if (inventaire.putIfAbsent(cle, element) != null)
+            throw new IllegalArgumentException("Ajout refusé : " + element.getNom() + " existe déjà.");
+        parNom.put(element.getNom(), element);
+        parPrix.ajouter(cle, element);
         System.out.println("Ajout de : " + element.getNom());
     }
 
+    /**
+     * Même règle que {@link #ajouter}, sans exception : chaque nom déjà
+     * présent est un échec d'un élément, à sa position dans la collection.
+     */
+    @Override
+    public RapportBatch ajouterTous(Collection<T> elements) {
+        RapportBatch rapport = new RapportBatch();
+        int ajoutes = 0;
+        int position = 0;
+        for (T element : elements) {
+            String cle = cle(element.getNom());
+            if (inventaire.putIfAbsent(cle, element) == null) {
+                parNom.put(element.getNom(), element);
+                parPrix.ajouter(cle, element);
+                ajoutes++;
+            } else {
+                rapport.ajouterEchec(position, 1, "Ajout refusé : " + element.getNom() + " existe déjà.");
+            }
+            position++;
+        }
+        rapport.ajouterInserees(ajoutes);
+        System.out.println("Ajout en lot de " + ajoutes + " éléments (" + (elements.size() - ajoutes) + " refusés)");
+        return rapport;
+    }
+
     @Override
     public List<T> listerTout() {
-        return new ArrayList<>(inventaire);
+        return new ArrayList<>(inventaire.values());
+    }
+
+    /** Page par clé lue dans l'index par nom : O(log n + limite), quelle que soit la profondeur. */
+    @Override
+    public Page<T> listerPage(String apresNom, int limite) {
+        return page(parNom, apresNom, limite);
+    }
+
+    /** Les limite + 1 premiers éléments après apresNom (exclu) d'un index trié par nom. */
+    static <T extends Produit> Page<T> page(NavigableMap<String, T> parNom, String apresNom, int limite) {
+        Map<String, T> suite = apresNom == null ? parNom : parNom.tailMap(apresNom, false);
+        List<T> lus = new ArrayList<>();
+        for (T element : suite.values()) {
+            if (lus.size() > limite)
+                break;
+            lus.add(element);
+        }
+        return Page.depuis(lus, limite, Produit::getNom);
     }
 
     @Override
     public T trouverParNom(String nom) throws StockException {
-        return inventaire.stream()
-                .filter(p -> p.getNom().equalsIgnoreCase(nom))
-                .findFirst()
-                .orElseThrow(() -> new StockException("Produit '" + nom + "' introuvable !"));
+        T element = inventaire.get(cle(nom));
+        if (element == null)
+            throw new StockException("Produit '" + nom + "' introuvable !");
+        return element;
+    }
+
+    /** Une recherche dans l'index par nom demandé. */
+    @Override
+    public Map<String, T> trouverParNoms(Collection<String> noms) {
+        Map<String, T> trouves = new TreeMap<>(ORDRE_NOM);
+        for (String nom : noms) {
+            T element = inventaire.get(cle(nom));
+            if (element != null)
+                trouves.putIfAbsent(element.getNom(), element);
+        }
+        return trouves;
     }
 
+    /**
+     * Remplace l'élément de même nom en gardant sa place dans l'ordre d'ajout ;
+     * l'index par nom prend la casse du nouvel élément.
+     */
     @Override
     public void mettreAJour(T element) throws StockException {
-        T existant = trouverParNom(element.getNom());
-        int index = inventaire.indexOf(existant);
-        inventaire.set(index, element);
+        String cle = cle(element.getNom());
+        if (inventaire.replace(cle, element) == null)
+            throw new StockException("Produit '" + element.getNom() + "' introuvable !");
+        // put() garderait l'ancienne clé, égale sans distinction de casse
+        parNom.remove(element.getNom());
+        parNom.put(element.getNom(), element);
+        parPrix.ajouter(cle, element);
         System.out.println("Maj de : " + element.getNom());
     }
 
     @Override
     public void supprimer(String nom) throws StockException {
-        T existant = trouverParNom(nom);
-        inventaire.remove(existant);
+        String cle = cle(nom);
+        if (inventaire.remove(cle) == null)
+            throw new StockException("Produit '" + nom + "' introuvable !");
+        parNom.remove(nom);
+        parPrix.retirer(cle);
         System.out.println("Suppression de : " + nom);
     }
 
-    // Utilisation des Streams pour une analyse technique
+    /** Mêmes agrégats que les DAO, calculés en un passage ; les noms sont uniques par construction. */
+    public StockStatistics statistiques() {
+        DoubleSummaryStatistics prix = new DoubleSummaryStatistics();
+        for (T element : inventaire.values())
+            prix.accept(element.getPrix());
+        return StockStatistics.depuis(prix, inventaire.size());
+    }
+
+    /** Produits de prix >= seuil, du moins cher au plus cher (index par prix). */
     public List<T> filtrerParPrixMin(double seuil) {
-        return inventaire.stream()
-                .filter(p -> p.getPrix() >= seuil)
-                .collect(Collectors.toList());
+        return parPrix.auDessusDe(seuil);
+    }
+
+    /** Produits dont le prix est dans [min, max], du moins cher au plus cher. */
+    public List<T> filtrerParPrixEntre(double min, double max) {
+        return parPrix.entre(min, max);
+    }
+
+    public List<T> moinsChers(int n) {
+        return parPrix.moinsChers(n);
+    }
+
+    public List<T> plusChers(int n) {
+        return parPrix.plusChers(n);
+    }
+
+    /** Nombre de produits strictement moins chers que prix. */
+    public int rangPrix(double prix) {
+        return parPrix.rang(prix);
+    }
+
+    /** Prix au percentile p (0 < p <= 100) ; vide si l'inventaire est vide. */
+    public OptionalDouble percentilePrix(double p) {
+        return parPrix.percentile(p);
     }
 }
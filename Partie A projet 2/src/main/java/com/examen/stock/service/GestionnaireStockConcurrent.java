@@ -0,0 +1,338 @@
+package com.examen.stock.service;
+
+import com.examen.stock.dao.Page;
+import com.examen.stock.dao.RapportBatch;
+import com.examen.stock.exception.StockException;
+import com.examen.stock.model.Produit;
+import com.examen.stock.model.StockStatistics;
+import com.examen.stock.repository.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.DoubleSummaryStatistics;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.OptionalDouble;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+
+/**
+ * Variante de {@link GestionnaireStock} partageable entre threads (écrivain
+ * de fond type StockSimulationService et lecteurs de l'interface).
+ *
+ * Les produits sont répartis par hachage de la clé du nom sur des segments
+ * verrouillés séparément : deux opérations sur des noms de segments
+ * différents ne s'attendent pas. Les noms sont aussi rangés dans une skip
+ * list concurrente, modifiée par les ajouts et suppressions seulement, qui
+ * sert à la pagination. L'index par prix est
+ * protégé par un StampedLock : rang et percentile le lisent d'abord sans
+ * verrou (lecture optimiste validée), les parcours de tranche sous verrou
+ * de lecture.
+ *
+ * Une écriture dépose sa modification de l'index par prix dans une file,
+ * dans l'ordre du segment, puis la publie avant de rendre la main : le
+ * premier écrivain qui obtient le verrou d'écriture applique toute la file,
+ * modifications des autres comprises, et ceux-ci repartent sans attendre
+ * s'ils ont été servis entre-temps. Les lecteurs n'appliquent jamais rien :
+ * ils lisent le dernier index publié et voient donc toutes les écritures
+ * terminées avant eux.
+ * Pas de trace par opération sur System.out, qui est lui-même un verrou global.
+ */
+public class GestionnaireStockConcurrent<T extends Produit> implements Repository<T> {
+    private static final Comparator<String> ORDRE_NOM = String.CASE_INSENSITIVE_ORDER;
+    private static final int SEGMENTS_DEFAUT = Integer.getInteger("stock.memoire.segments", 64);
+
+    private final Segment<T>[] segments;
+    private final ConcurrentSkipListSet<String> nomsTries = new ConcurrentSkipListSet<>(ORDRE_NOM);
+    private final IndexPrix<T> parPrix = new IndexPrix<>();
+    private final StampedLock verrouIndex = new StampedLock();
+    private final ConcurrentLinkedQueue<Modification<T>> enAttente = new ConcurrentLinkedQueue<>();
+
+    private static final class Segment<T> {
+        final Map<String, T> elements = new HashMap<>();
+    }
+
+    /** Écriture de l'index par prix en attente ; element null pour un retrait. */
+    private static final class Modification<T> {
+        final String cle;
+        final T element;
+        // Écrit sous le verrou d'écriture de l'index, lu sans verrou par l'écrivain qui attend
+        volatile boolean appliquee;
+
+        Modification(String cle, T element) {
+            this.cle = cle;
+            this.element = element;
+        }
+    }
+
+    public GestionnaireStockConcurrent() {
+        this(SEGMENTS_DEFAUT);
+    }
+
+    public GestionnaireStockConcurrent(int nbSegments) {
+        if (nbSegments < 1)
+            throw new IllegalArgumentException("Nombre de segments invalide : " + nbSegments);
+        // Arrondi à une puissance de 2 pour choisir le segment par masque
+        int taille = 1;
+        while (taille < nbSegments)
+            taille <<= 1;
+        @SuppressWarnings("unchecked")
+        Segment<T>[] s = (Segment<T>[]) new Segment<?>[taille];
+        for (int i = 0; i < s.length; i++)
+            s[i] = new Segment<>();
+        segments = s;
+    }
+
+    private Segment<T> segment(String cle) {
+        int h = cle.hashCode();
+        return segments[(h ^ h >>> 16) & (segments.length - 1)];
+    }
+
+    /** Dépose une écriture de l'index par prix ; appelé sous le verrou du segment de la clé. */
+    private Modification<T> indexer(String cle, T element) {
+        Modification<T> modification = new Modification<>(cle, element);
+        enAttente.add(modification);
+        return modification;
+    }
+
+    /**
+     * Appelé par l'écrivain hors verrou de segment : retourne une fois sa
+     * modification (et toutes celles déposées avant elle) appliquée. Sous le
+     * verrou d'écriture, la file entière est vidée dans son ordre.
+     */
+    private void publier(Modification<T> modification) {
+        if (modification.appliquee)
+            return;
+        long stamp = verrouIndex.writeLock();
+        try {
+            Modification<T> suivante;
+            while ((suivante = enAttente.poll()) != null) {
+                if (suivante.element == null)
+                    parPrix.retirer(suivante.cle);
+                else
+                    parPrix.ajouter(suivante.cle, suivante.element);
+                suivante.appliquee = true;
+            }
+        } finally {
+            verrouIndex.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Un nom déjà présent est refusé, comme dans GestionnaireStock.
+     *
+     * @throws IllegalArgumentException si le nom est déjà présent
+     */
+    @Override
+    public void ajouter(T element) {
+        Modification<T> modification = ajouterSiAbsent(element);
+        if (modification == null)
+            throw new IllegalArgumentException("Ajout refusé : " + element.getNom() + " existe déjà.");
+        publier(modification);
+    }
+
+    /** @return la modification de l'index par prix déposée, null si le nom est déjà présent */
+    private Modification<T> ajouterSiAbsent(T element) {
+        String cle = GestionnaireStock.cle(element.getNom());
+        Segment<T> segment = segment(cle);
+        synchronized (segment) {
+            if (segment.elements.putIfAbsent(cle, element) != null)
+                return null;
+            nomsTries.add(element.getNom());
+            return indexer(cle, element);
+        }
+    }
+
+    /**
+     * Chaque élément est ajouté séparément : le lot n'est pas atomique. Un nom
+     * déjà présent est un échec d'un élément, à sa position. L'index par prix
+     * est publié une fois, après le dernier ajout.
+     */
+    @Override
+    public RapportBatch ajouterTous(Collection<T> elements) {
+        RapportBatch rapport = new RapportBatch();
+        int ajoutes = 0;
+        int position = 0;
+        Modification<T> derniere = null;
+        for (T element : elements) {
+            Modification<T> modification = ajouterSiAbsent(element);
+            if (modification != null) {
+                derniere = modification;
+                ajoutes++;
+            } else {
+                rapport.ajouterEchec(position, 1, "Ajout refusé : " + element.getNom() + " existe déjà.");
+            }
+            position++;
+        }
+        if (derniere != null)
+            publier(derniere);
+        rapport.ajouterInserees(ajoutes);
+        return rapport;
+    }
+
+    /** Segment par segment : chaque segment est cohérent, l'ensemble n'est pas un instantané. */
+    @Override
+    public List<T> listerTout() {
+        List<T> tous = new ArrayList<>();
+        for (Segment<T> segment : segments) {
+            synchronized (segment) {
+                tous.addAll(segment.elements.values());
+            }
+        }
+        return tous;
+    }
+
+    /**
+     * Page lue dans la liste triée des noms : O(log n + limite). Parcours
+     * faiblement cohérent ; un nom supprimé entre-temps est sauté.
+     */
+    @Override
+    public Page<T> listerPage(String apresNom, int limite) {
+        NavigableSet<String> suite = apresNom == null ? nomsTries : nomsTries.tailSet(apresNom, false);
+        List<T> lus = new ArrayList<>();
+        for (String nom : suite) {
+            if (lus.size() > limite)
+                break;
+            T element = lire(GestionnaireStock.cle(nom));
+            if (element != null)
+                lus.add(element);
+        }
+        return Page.depuis(lus, limite, Produit::getNom);
+    }
+
+    private T lire(String cle) {
+        Segment<T> segment = segment(cle);
+        synchronized (segment) {
+            return segment.elements.get(cle);
+        }
+    }
+
+    @Override
+    public T trouverParNom(String nom) throws StockException {
+        T element = lire(GestionnaireStock.cle(nom));
+        if (element == null)
+            throw new StockException("Produit '" + nom + "' introuvable !");
+        return element;
+    }
+
+    @Override
+    public Map<String, T> trouverParNoms(Collection<String> noms) {
+        Map<String, T> trouves = new TreeMap<>(ORDRE_NOM);
+        for (String nom : noms) {
+            T element = lire(GestionnaireStock.cle(nom));
+            if (element != null)
+                trouves.putIfAbsent(element.getNom(), element);
+        }
+        return trouves;
+    }
+
+    @Override
+    public void mettreAJour(T element) throws StockException {
+        String cle = GestionnaireStock.cle(element.getNom());
+        Segment<T> segment = segment(cle);
+        Modification<T> modification;
+        synchronized (segment) {
+            if (segment.elements.replace(cle, element) == null)
+                throw new StockException("Produit '" + element.getNom() + "' introuvable !");
+            modification = indexer(cle, element);
+        }
+        publier(modification);
+    }
+
+    @Override
+    public void supprimer(String nom) throws StockException {
+        String cle = GestionnaireStock.cle(nom);
+        Segment<T> segment = segment(cle);
+        Modification<T> modification;
+        synchronized (segment) {
+            if (segment.elements.remove(cle) == null)
+                throw new StockException("Produit '" + nom + "' introuvable !");
+            nomsTries.remove(nom);
+            modification = indexer(cle, null);
+        }
+        publier(modification);
+    }
+
+    public int taille() {
+        return lireIndex(IndexPrix::taille);
+    }
+
+    /** Agrégats calculés sous le verrou de lecture de l'index : vue cohérente de tous les prix. */
+    public StockStatistics statistiques() {
+        long stamp = verrouIndex.readLock();
+        try {
+            DoubleSummaryStatistics prix = new DoubleSummaryStatistics();
+            for (T element : parPrix.auDessusDe(Double.NEGATIVE_INFINITY))
+                prix.accept(element.getPrix());
+            return StockStatistics.depuis(prix, prix.getCount());
+        } finally {
+            verrouIndex.unlockRead(stamp);
+        }
+    }
+
+    public List<T> filtrerParPrixMin(double seuil) {
+        return parcourirIndex(index -> index.auDessusDe(seuil));
+    }
+
+    public List<T> filtrerParPrixEntre(double min, double max) {
+        return parcourirIndex(index -> index.entre(min, max));
+    }
+
+    public List<T> moinsChers(int n) {
+        return parcourirIndex(index -> index.moinsChers(n));
+    }
+
+    public List<T> plusChers(int n) {
+        return parcourirIndex(index -> index.plusChers(n));
+    }
+
+    public int rangPrix(double prix) {
+        return lireIndex(index -> index.rang(prix));
+    }
+
+    public OptionalDouble percentilePrix(double p) {
+        if (!(p > 0 && p <= 100))
+            throw new IllegalArgumentException("Percentile invalide : " + p);
+        return lireIndex(index -> index.percentile(p));
+    }
+
+    /**
+     * Lecture courte du dernier index publié : tentée sans verrou puis
+     * validée ; si une publication s'est intercalée (ou a fait échouer la
+     * lecture), rejouée sous verrou de lecture.
+     */
+    private <R> R lireIndex(Function<IndexPrix<T>, R> lecture) {
+        long stamp = verrouIndex.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                R resultat = lecture.apply(parPrix);
+                if (verrouIndex.validate(stamp))
+                    return resultat;
+            } catch (RuntimeException e) {
+                // état intermédiaire vu pendant une écriture : relu sous verrou
+            }
+        }
+        stamp = verrouIndex.readLock();
+        try {
+            return lecture.apply(parPrix);
+        } finally {
+            verrouIndex.unlockRead(stamp);
+        }
+    }
+
+    /** Parcours de tranche sous verrou de lecture : résultat cohérent, écrivains en attente. */
+    private List<T> parcourirIndex(Function<IndexPrix<T>, List<T>> parcours) {
+        long stamp = verrouIndex.readLock();
+        try {
+            return parcours.apply(parPrix);
+        } finally {
+            verrouIndex.unlockRead(stamp);
+        }
+    }
+}
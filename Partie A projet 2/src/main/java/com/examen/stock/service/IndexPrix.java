@@ -0,0 +1,256 @@
+package com.examen.stock.service;
+
+import com.examen.stock.model.Produit;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.SplittableRandom;
+
+/**
+ * Index secondaire des éléments par prix : arbre binaire de recherche
+ * équilibré (treap) dont chaque nœud connaît la taille de son sous-arbre.
+ * Les requêtes par seuil, tranche, rang et percentile coûtent O(log n),
+ * plus la taille du résultat.
+ *
+ * L'ordre est (prix, clé du nom) pour que deux produits de même prix aient
+ * chacun leur place. Le prix indexé est celui lu à l'ajout : un prix modifié
+ * directement sur l'objet n'est pris en compte qu'après retirer + ajouter.
+ *
+ * Non synchronisé. rang et percentile bornent leur descente par la taille
+ * de l'arbre : lus sans verrou pendant une écriture (lecture optimiste),
+ * ils échouent par une exception au lieu de boucler.
+ */
+class IndexPrix<T extends Produit> {
+
+    private static final class Noeud<T> {
+        final double prix;
+        final String cle;
+        final T element;
+        final int priorite;
+        int taille = 1;
+        Noeud<T> gauche;
+        Noeud<T> droite;
+
+        Noeud(double prix, String cle, T element, int priorite) {
+            this.prix = prix;
+            this.cle = cle;
+            this.element = element;
+            this.priorite = priorite;
+        }
+    }
+
+    // Nœud de chaque clé, pour retrouver le prix indexé au moment du retrait
+    private final Map<String, Noeud<T>> noeuds = new HashMap<>();
+    private final SplittableRandom aleatoire = new SplittableRandom();
+    private Noeud<T> racine;
+
+    int taille() {
+        return taille(racine);
+    }
+
+    /** Indexe l'élément sous sa clé, en remplaçant l'entrée précédente de même clé. */
+    void ajouter(String cle, T element) {
+        retirer(cle);
+        Noeud<T> noeud = new Noeud<>(element.getPrix(), cle, element, aleatoire.nextInt());
+        noeuds.put(cle, noeud);
+        racine = inserer(racine, noeud);
+    }
+
+    void retirer(String cle) {
+        Noeud<T> noeud = noeuds.remove(cle);
+        if (noeud != null)
+            racine = supprimer(racine, noeud.prix, noeud.cle);
+    }
+
+    void vider() {
+        noeuds.clear();
+        racine = null;
+    }
+
+    /** Éléments de prix >= min, du moins cher au plus cher. */
+    List<T> auDessusDe(double min) {
+        return entre(min, Double.POSITIVE_INFINITY);
+    }
+
+    /** Éléments de prix compris dans [min, max], du moins cher au plus cher. */
+    List<T> entre(double min, double max) {
+        List<T> resultat = new ArrayList<>();
+        collecter(racine, min, max, resultat);
+        return resultat;
+    }
+
+    /** Les n éléments les moins chers, par prix croissant. */
+    List<T> moinsChers(int n) {
+        List<T> resultat = new ArrayList<>(Math.min(n, taille()));
+        premiers(racine, n, resultat);
+        return resultat;
+    }
+
+    /** Les n éléments les plus chers, par prix décroissant. */
+    List<T> plusChers(int n) {
+        List<T> resultat = new ArrayList<>(Math.min(n, taille()));
+        derniers(racine, n, resultat);
+        return resultat;
+    }
+
+    /** Nombre d'éléments strictement moins chers que prix. */
+    int rang(double prix) {
+        int rang = 0;
+        Noeud<T> n = racine;
+        int pasMax = taille(n);
+        for (int pas = 0; n != null; pas++) {
+            if (pas > pasMax)
+                throw new IllegalStateException("Index modifié pendant la lecture");
+            if (Double.compare(n.prix, prix) < 0) {
+                rang += taille(n.gauche) + 1;
+                n = n.droite;
+            } else {
+                n = n.gauche;
+            }
+        }
+        return rang;
+    }
+
+    /**
+     * Prix au percentile p (0 < p <= 100), méthode du rang le plus proche :
+     * le plus petit prix tel qu'au moins p % des éléments coûtent autant ou moins.
+     */
+    OptionalDouble percentile(double p) {
+        if (!(p > 0 && p <= 100))
+            throw new IllegalArgumentException("Percentile invalide : " + p);
+        int total = taille();
+        if (total == 0)
+            return OptionalDouble.empty();
+        int rang = (int) Math.ceil(p / 100 * total) - 1;
+        return OptionalDouble.of(kieme(Math.max(rang, 0)).prix);
+    }
+
+    private Noeud<T> kieme(int k) {
+        Noeud<T> n = racine;
+        int pasMax = taille(n);
+        for (int pas = 0;; pas++) {
+            if (pas > pasMax)
+                throw new IllegalStateException("Index modifié pendant la lecture");
+            int aGauche = taille(n.gauche);
+            if (k < aGauche) {
+                n = n.gauche;
+            } else if (k == aGauche) {
+                return n;
+            } else {
+                k -= aGauche + 1;
+                n = n.droite;
+            }
+        }
+    }
+
+    private static int comparer(double prix, String cle, Noeud<?> n) {
+        int c = Double.compare(prix, n.prix);
+        return c != 0 ? c : cle.compareTo(n.cle);
+    }
+
+    private static int taille(Noeud<?> n) {
+        return n == null ? 0 : n.taille;
+    }
+
+    private static void majTaille(Noeud<?> n) {
+        n.taille = taille(n.gauche) + taille(n.droite) + 1;
+    }
+
+    private static <T> Noeud<T> inserer(Noeud<T> n, Noeud<T> nouveau) {
+        if (n == null)
+            return nouveau;
+        if (comparer(nouveau.prix, nouveau.cle, n) < 0) {
+            n.gauche = inserer(n.gauche, nouveau);
+            if (n.gauche.priorite > n.priorite)
+                n = rotationDroite(n);
+        } else {
+            n.droite = inserer(n.droite, nouveau);
+            if (n.droite.priorite > n.priorite)
+                n = rotationGauche(n);
+        }
+        majTaille(n);
+        return n;
+    }
+
+    private static <T> Noeud<T> supprimer(Noeud<T> n, double prix, String cle) {
+        if (n == null)
+            return null;
+        int c = comparer(prix, cle, n);
+        if (c < 0) {
+            n.gauche = supprimer(n.gauche, prix, cle);
+        } else if (c > 0) {
+            n.droite = supprimer(n.droite, prix, cle);
+        } else {
+            return fusionner(n.gauche, n.droite);
+        }
+        majTaille(n);
+        return n;
+    }
+
+    /** Fusionne deux sous-arbres dont toutes les clés de a précèdent celles de b. */
+    private static <T> Noeud<T> fusionner(Noeud<T> a, Noeud<T> b) {
+        if (a == null)
+            return b;
+        if (b == null)
+            return a;
+        if (a.priorite > b.priorite) {
+            a.droite = fusionner(a.droite, b);
+            majTaille(a);
+            return a;
+        }
+        b.gauche = fusionner(a, b.gauche);
+        majTaille(b);
+        return b;
+    }
+
+    private static <T> Noeud<T> rotationDroite(Noeud<T> n) {
+        Noeud<T> g = n.gauche;
+        n.gauche = g.droite;
+        g.droite = n;
+        majTaille(n);
+        return g;
+    }
+
+    private static <T> Noeud<T> rotationGauche(Noeud<T> n) {
+        Noeud<T> d = n.droite;
+        n.droite = d.gauche;
+        d.gauche = n;
+        majTaille(n);
+        return d;
+    }
+
+    /** Parcours infixe limité aux sous-arbres qui peuvent contenir [min, max]. */
+    private static <T> void collecter(Noeud<T> n, double min, double max, List<T> resultat) {
+        if (n == null)
+            return;
+        boolean auDessusMin = Double.compare(n.prix, min) >= 0;
+        boolean sousMax = Double.compare(n.prix, max) <= 0;
+        if (auDessusMin)
+            collecter(n.gauche, min, max, resultat);
+        if (auDessusMin && sousMax)
+            resultat.add(n.element);
+        if (sousMax)
+            collecter(n.droite, min, max, resultat);
+    }
+
+    private static <T> void premiers(Noeud<T> n, int limite, List<T> resultat) {
+        if (n == null || resultat.size() >= limite)
+            return;
+        premiers(n.gauche, limite, resultat);
+        if (resultat.size() < limite)
+            resultat.add(n.element);
+        premiers(n.droite, limite, resultat);
+    }
+
+    private static <T> void derniers(Noeud<T> n, int limite, List<T> resultat) {
+        if (n == null || resultat.size() >= limite)
+            return;
+        derniers(n.droite, limite, resultat);
+        if (resultat.size() < limite)
+            resultat.add(n.element);
+        derniers(n.gauche, limite, resultat);
+    }
+}
@@ -1,55 +1,174 @@
 package com.examen.stock.service;
 
-import com.examen.stock.dao.IDao;
+import com.examen.stock.dao.IProduitDao;
+import com.examen.stock.dao.Page;
+import com.examen.stock.dao.RapportBatch;
+import com.examen.stock.exception.ConflitVersionException;
 import com.examen.stock.exception.StockException;
 import com.examen.stock.model.Produit;
+import com.examen.stock.model.ProduitResume;
+import com.examen.stock.model.StockStatistics;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleUnaryOperator;
 
 public class ProduitService {
-    private IDao<Produit> dao;
+    // Politique de reprise après conflit de version (-Dstock.conflit.tentatives=5 ...)
+    private static final int TENTATIVES_DEFAUT = Integer.getInteger("stock.conflit.tentatives", 5);
+    private static final long ATTENTE_DEFAUT_MS = Long.getLong("stock.conflit.attenteMs", 10);
 
-    public ProduitService(IDao<Produit> dao) {
+    private IProduitDao dao;
+    private final int tentatives;
+    private final long attenteMs;
+
+    public ProduitService(IProduitDao dao) {
+        this(dao, TENTATIVES_DEFAUT, ATTENTE_DEFAUT_MS);
+    }
+
+    public ProduitService(IProduitDao dao, int tentatives, long attenteMs) {
+        if (tentatives < 1)
+            throw new IllegalArgumentException("Nombre de tentatives invalide : " + tentatives);
         this.dao = dao;
+        this.tentatives = tentatives;
+        this.attenteMs = attenteMs;
     }
 
-    public void enregistrerProduit(Produit p) {
+    public void enregistrerProduit(Produit p) throws StockException {
         dao.create(p);
     }
 
+    public RapportBatch enregistrerProduits(Collection<Produit> produits) {
+        RapportBatch rapport = dao.createAll(produits);
+        rapport.getEchecs().forEach(echec -> System.err.println("Service: " + echec));
+        return rapport;
+    }
+
+    /** Chargement massif (import nocturne) : validé par tranches, débit affiché. */
+    public RapportBatch importer(Iterable<Produit> produits) {
+        RapportBatch rapport = dao.importer(produits);
+        rapport.getEchecs().forEach(echec -> System.err.println("Service: " + echec));
+        return rapport;
+    }
+
+    /** Crée le produit ou met à jour son prix s'il existe déjà (rejouable sans doublon). */
+    public void enregistrerOuMettreAJour(Produit p) {
+        dao.saveOrUpdate(p).getEchecs().forEach(echec -> System.err.println("Service: " + echec));
+    }
+
+    /** Synchronise un lot de produits : insertion des nouveaux, mise à jour des prix des autres. */
+    public RapportBatch synchroniser(Collection<Produit> produits) {
+        RapportBatch rapport = dao.upsertAll(produits);
+        rapport.getEchecs().forEach(echec -> System.err.println("Service: " + echec));
+        return rapport;
+    }
+
     public List<Produit> recupererTout() {
         return dao.readAll();
     }
 
+    public Page<Produit> recupererPage(String apresNom, int limite) {
+        return dao.readPage(apresNom, limite);
+    }
+
+    public Page<ProduitResume> recupererResumes(String apresNom, int limite) {
+        return dao.readResumes(apresNom, limite);
+    }
+
+    /** Noms seuls, par pages : à appeler explicitement, hors statistiques. */
+    public Page<String> recupererNoms(String apresNom, int limite) {
+        return dao.readNoms(apresNom, limite);
+    }
+
+    /** Recherche groupée ; les noms introuvables sont signalés en une seule ligne. */
+    public Map<String, Produit> recupererParNoms(Collection<String> noms) {
+        Map<String, Produit> trouves = dao.readByNames(noms);
+        List<String> manquants = noms.stream().filter(n -> !trouves.containsKey(n)).toList();
+        if (!manquants.isEmpty())
+            System.out.println("Service: Produits introuvables -> " + manquants);
+        return trouves;
+    }
+
+    /**
+     * Relit le produit puis écrit le nouveau prix avec contrôle de version :
+     * une modification concurrente lève ConflitVersionException au lieu
+     * d'être écrasée en silence.
+     */
     public void modifierPrix(String nom, double nouveauPrix) throws StockException {
         Produit p = dao.readByName(nom);
-        dao.update(new Produit(p.getNom(), nouveauPrix));
+        p.setPrix(nouveauPrix);
+        dao.update(p);
+    }
+
+    /** Modifie le prix seulement s'il n'a pas changé depuis sa lecture. */
+    public boolean modifierPrixSi(String nom, double prixLu, double nouveauPrix) throws StockException {
+        boolean modifie = dao.modifierPrixSi(nom, prixLu, nouveauPrix);
+        if (!modifie)
+            System.out.println("Service: Prix de " + nom + " modifié entre-temps, mise à jour refusée.");
+        return modifie;
+    }
+
+    /**
+     * Lecture, calcul du nouveau prix puis écriture optimiste ; en cas de
+     * conflit de version, relit et recalcule après une attente croissante
+     * (attenteMs, 2 x attenteMs, ... avec une part aléatoire), au plus
+     * tentatives fois. À appeler hors unité de travail. Retourne le prix écrit.
+     */
+    public double ajusterPrix(String nom, DoubleUnaryOperator calcul) throws StockException {
+        for (int tentative = 1;; tentative++) {
+            Produit p = dao.readByName(nom);
+            p.setPrix(calcul.applyAsDouble(p.getPrix()));
+            try {
+                dao.update(p);
+                return p.getPrix();
+            } catch (ConflitVersionException e) {
+                if (tentative == tentatives)
+                    throw e;
+                System.out.println("Service: " + e.getMessage() + " Nouvelle tentative (" + (tentative + 1) + "/"
+                        + tentatives + ").");
+                attendre(tentative);
+            }
+        }
+    }
+
+    private void attendre(int tentative) throws StockException {
+        long base = attenteMs << Math.min(tentative - 1, 10);
+        try {
+            Thread.sleep(base + ThreadLocalRandom.current().nextLong(base + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StockException("Ajustement de prix interrompu.");
+        }
+    }
+
+    public int reevaluerCatalogue(String nomCatalogue, double pourcentage) throws StockException {
+        return dao.reevaluerPrixCatalogue(nomCatalogue, pourcentage);
+    }
+
+    public int reevaluerTranche(double min, double max, double pourcentage) throws StockException {
+        return dao.reevaluerPrixEntre(min, max, pourcentage);
     }
 
     public void retirerProduit(String nom) throws StockException {
         dao.delete(nom);
     }
 
-    // Analyse avec Streams
+    public StockStatistics statistiques() {
+        return dao.statistiques();
+    }
+
+    // Agrégats calculés par la base : une seule requête, aucune ligne produit transférée
     public void afficherStatistiques() {
-        List<Produit> produits = dao.readAll();
-        if (produits.isEmpty()) {
+        StockStatistics stats = dao.statistiques();
+        if (stats.estVide()) {
             System.out.println("Service: Aucune donnée pour les statistiques.");
             return;
         }
 
         System.out.println("\n--- STATISTIQUES SERVICE (VIA DAO) ---");
-        double total = produits.stream().mapToDouble(Produit::getPrix).sum();
-        double moyenne = produits.stream().mapToDouble(Produit::getPrix).average().orElse(0);
-
-        System.out.println("Valeur Valeur Stock : " + total + "€");
-        System.out.printf("Prix Moyen : %.2f€\n", moyenne);
-
-        String catalogue = produits.stream()
-                .map(Produit::getNom)
-                .distinct()
-                .sorted()
-                .collect(Collectors.joining(" | "));
-        System.out.println("Catalogue Service : " + catalogue);
+        System.out.println("Nombre de produits : " + stats.getNombre() + " (" + stats.getNomsDistincts() + " noms distincts)");
+        System.out.println("Valeur Valeur Stock : " + stats.getSomme() + "€");
+        System.out.printf("Prix Moyen : %.2f€ (min %.2f€, max %.2f€)\n", stats.getMoyenne(), stats.getMin(), stats.getMax());
     }
 }
@@ -1,5 +1,6 @@
 package com.examen.stock.service;
 
+import com.examen.stock.exception.StockException;
 import com.examen.stock.model.Produit;
 import java.util.Random;
 
@@ -41,6 +42,9 @@ public class StockSimulationService implements Runnable {
                 System.out.println("[Thread Simulation] Nouveau produit livré et enregistré : " + p);
                 count++;
 
+            } catch (StockException e) {
+                System.err.println("[Thread Simulation] Livraison non enregistrée : " + e.getMessage());
+                count++;
             } catch (InterruptedException e) {
                 System.err.println("[Thread Simulation] Interruption du thread.");
                 Thread.currentThread().interrupt();
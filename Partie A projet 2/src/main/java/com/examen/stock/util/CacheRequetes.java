@@ -0,0 +1,173 @@
+package com.examen.stock.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache LRU de PreparedStatement attaché à une connexion physique du pool,
+ * indexé par le texte SQL. Fermer une requête obtenue du cache la remet
+ * simplement à disposition du prochain prepareStatement(sql) identique.
+ */
+class CacheRequetes {
+    private final Connection physique;
+    private final int capacite;
+    private final AtomicLong succes;
+    private final AtomicLong echecs;
+    private final AtomicLong evictions;
+    private final LinkedHashMap<String, Entree> entrees;
+
+    CacheRequetes(Connection physique, int capacite, AtomicLong succes, AtomicLong echecs, AtomicLong evictions) {
+        this.physique = physique;
+        this.capacite = capacite;
+        this.succes = succes;
+        this.echecs = echecs;
+        this.evictions = evictions;
+        this.entrees = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entree> eldest) {
+                if (size() <= CacheRequetes.this.capacite)
+                    return false;
+                CacheRequetes.this.evictions.incrementAndGet();
+                eldest.getValue().evincer();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Retourne la requête en cache pour ce SQL, ou la prépare. Si la requête
+     * en cache est déjà ouverte par l'appelant (deux prepareStatement du même
+     * SQL imbriqués), une requête hors cache est préparée à la place.
+     */
+    PreparedStatement preparer(String sql, Connection poignee) throws SQLException {
+        Entree entree = entrees.get(sql);
+        if (entree != null && !entree.enUtilisation) {
+            succes.incrementAndGet();
+            return entree.emprunter(poignee);
+        }
+        echecs.incrementAndGet();
+        if (entree != null)
+            return physique.prepareStatement(sql);
+        entree = new Entree(physique.prepareStatement(sql));
+        entrees.put(sql, entree);
+        return entree.emprunter(poignee);
+    }
+
+    /** Libère les requêtes que l'emprunteur de la connexion n'a pas fermées. */
+    void liberer() {
+        for (Entree entree : entrees.values()) {
+            if (entree.enUtilisation)
+                entree.restituer();
+        }
+    }
+
+    void vider() {
+        List<Entree> toutes = new ArrayList<>(entrees.values());
+        entrees.clear();
+        toutes.forEach(Entree::evincer);
+    }
+
+    private static final class Entree {
+        private final PreparedStatement requete;
+        private final int fetchSizeDefaut;
+        private boolean enUtilisation;
+        private boolean evincee;
+        private PoigneeRequete poigneeCourante;
+
+        Entree(PreparedStatement requete) throws SQLException {
+            this.requete = requete;
+            this.fetchSizeDefaut = requete.getFetchSize();
+        }
+
+        PreparedStatement emprunter(Connection connexion) {
+            enUtilisation = true;
+            poigneeCourante = new PoigneeRequete(this, connexion);
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, poigneeCourante);
+        }
+
+        /** Remet la requête dans son état initial pour le prochain emprunteur. */
+        void restituer() {
+            if (poigneeCourante != null)
+                poigneeCourante.fermee = true;
+            poigneeCourante = null;
+            enUtilisation = false;
+            try {
+                requete.clearParameters();
+                requete.clearBatch();
+                requete.setMaxRows(0);
+                requete.setQueryTimeout(0);
+                requete.setFetchSize(fetchSizeDefaut);
+            } catch (SQLException e) {
+                evincee = true;
+            }
+            if (evincee)
+                fermer();
+        }
+
+        void evincer() {
+            evincee = true;
+            if (!enUtilisation)
+                fermer();
+        }
+
+        private void fermer() {
+            try {
+                requete.close();
+            } catch (SQLException e) {
+                System.err.println("Cache de requêtes : erreur à la fermeture : " + e.getMessage());
+            }
+        }
+    }
+
+    /** Vue d'une requête en cache remise à un emprunteur. */
+    private static final class PoigneeRequete implements InvocationHandler {
+        private final Entree entree;
+        private final Connection connexion;
+        private boolean fermee = false;
+
+        PoigneeRequete(Entree entree, Connection connexion) {
+            this.entree = entree;
+            this.connexion = connexion;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!fermee)
+                        entree.restituer();
+                    return null;
+                case "isClosed":
+                    return fermee;
+                case "getConnection":
+                    return connexion;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "RequeteEnCache[" + entree.requete + "]";
+                default:
+                    break;
+            }
+            if (fermee)
+                throw new SQLException("Requête déjà fermée.");
+            try {
+                return method.invoke(entree.requete, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
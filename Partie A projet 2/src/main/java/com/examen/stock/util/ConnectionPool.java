@@ -0,0 +1,425 @@
+package com.examen.stock.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool de connexions JDBC borné, partagé par les DAO JDBC et par Hibernate.
+ * Les connexions rendues par {@link #emprunter()} sont des poignées : leur
+ * close() restitue la connexion physique au pool au lieu de la fermer.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final long DELAI_MAINTENANCE_MS = 5_000;
+    private static final long INACTIVITE_AVANT_VALIDATION_MS = 30_000;
+
+    private final String url;
+    private final String utilisateur;
+    private final String motDePasse;
+    private final int tailleMin;
+    private final int tailleMax;
+    private final long dureeVieMaxMs;
+    private final long delaiAcquisitionMs;
+    private final long seuilFuiteMs;
+    private final boolean tracerEmprunts;
+    private final int tailleCacheRequetes;
+
+    private final ReentrantLock verrou = new ReentrantLock();
+    private final Condition disponible = verrou.newCondition();
+    private final Deque<ConnexionPoolee> inactives = new ArrayDeque<>();
+    private final Set<ConnexionPoolee> empruntees = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService maintenance;
+    private int total = 0;
+    private int enAttente = 0;
+    private boolean ferme = false;
+
+    private final AtomicLong nbEmprunts = new AtomicLong();
+    private final AtomicLong nbExpirations = new AtomicLong();
+    private final AtomicLong nbFuites = new AtomicLong();
+    private final AtomicLong attenteTotaleNanos = new AtomicLong();
+    private final AtomicLong attenteMaxNanos = new AtomicLong();
+    private final AtomicLong cacheSucces = new AtomicLong();
+    private final AtomicLong cacheEchecs = new AtomicLong();
+    private final AtomicLong cacheEvictions = new AtomicLong();
+
+    /**
+     * tracerEmprunts : capture la pile de chaque emprunt pour l'afficher en
+     * cas de fuite. Coûteux (une pile complète par emprunt), à réserver au
+     * diagnostic ; sans lui, une fuite est signalée avec sa seule durée.
+     */
+    public ConnectionPool(String url, String utilisateur, String motDePasse, int tailleMin, int tailleMax,
+            long dureeVieMaxMs, long delaiAcquisitionMs, long seuilFuiteMs, boolean tracerEmprunts,
+            int tailleCacheRequetes) {
+        if (tailleMax < 1 || tailleMin < 0 || tailleMin > tailleMax)
+            throw new IllegalArgumentException("Tailles de pool invalides : min=" + tailleMin + ", max=" + tailleMax);
+        this.url = url;
+        this.utilisateur = utilisateur;
+        this.motDePasse = motDePasse;
+        this.tailleMin = tailleMin;
+        this.tailleMax = tailleMax;
+        this.dureeVieMaxMs = dureeVieMaxMs;
+        this.delaiAcquisitionMs = delaiAcquisitionMs;
+        this.seuilFuiteMs = seuilFuiteMs;
+        this.tracerEmprunts = tracerEmprunts;
+        this.tailleCacheRequetes = tailleCacheRequetes;
+
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-pool-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        prechauffer();
+        maintenance.scheduleWithFixedDelay(this::entretenir, DELAI_MAINTENANCE_MS, DELAI_MAINTENANCE_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Emprunte une connexion, en attendant au plus le délai d'acquisition
+     * configuré si toutes les connexions sont déjà utilisées.
+     */
+    public Connection emprunter() throws SQLException {
+        long debut = System.nanoTime();
+        long resteNanos = TimeUnit.MILLISECONDS.toNanos(delaiAcquisitionMs);
+        ConnexionPoolee connexion = null;
+        boolean creer = false;
+
+        verrou.lock();
+        try {
+            while (connexion == null && !creer) {
+                if (ferme)
+                    throw new SQLException("Le pool de connexions est fermé.");
+                connexion = inactives.pollFirst();
+                if (connexion != null) {
+                    if (!estUtilisable(connexion)) {
+                        detruire(connexion);
+                        connexion = null;
+                    }
+                } else if (total < tailleMax) {
+                    total++;
+                    creer = true;
+                } else {
+                    if (resteNanos <= 0)
+                        throw new SQLTimeoutException("Aucune connexion disponible après " + delaiAcquisitionMs
+                                + " ms (actives=" + empruntees.size() + ", max=" + tailleMax + ").");
+                    enAttente++;
+                    try {
+                        resteNanos = disponible.awaitNanos(resteNanos);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Attente d'une connexion interrompue.", e);
+                    } finally {
+                        enAttente--;
+                    }
+                }
+            }
+        } finally {
+            verrou.unlock();
+        }
+
+        if (creer) {
+            try {
+                connexion = ouvrir();
+            } catch (SQLException e) {
+                liberer();
+                throw e;
+            }
+        }
+
+        long attente = System.nanoTime() - debut;
+        attenteTotaleNanos.addAndGet(attente);
+        attenteMaxNanos.accumulateAndGet(attente, Math::max);
+        nbEmprunts.incrementAndGet();
+
+        connexion.empruntee(tracerEmprunts ? new Throwable("Connexion empruntée ici") : null);
+        empruntees.add(connexion);
+        return poignee(connexion);
+    }
+
+    private void restituer(ConnexionPoolee connexion) {
+        empruntees.remove(connexion);
+        boolean saine = connexion.reinitialiser();
+        verrou.lock();
+        try {
+            if (ferme || !saine || connexion.estExpiree(dureeVieMaxMs)) {
+                if (!ferme && saine)
+                    nbExpirations.incrementAndGet();
+                detruire(connexion);
+            } else {
+                connexion.touchee();
+                inactives.addFirst(connexion);
+            }
+            disponible.signal();
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    private boolean estUtilisable(ConnexionPoolee connexion) {
+        if (connexion.estExpiree(dureeVieMaxMs)) {
+            nbExpirations.incrementAndGet();
+            return false;
+        }
+        return connexion.inactiveDepuis() < INACTIVITE_AVANT_VALIDATION_MS || connexion.estValide();
+    }
+
+    private ConnexionPoolee ouvrir() throws SQLException {
+        Connection physique = DriverManager.getConnection(url, utilisateur, motDePasse);
+        CacheRequetes cache = tailleCacheRequetes > 0
+                ? new CacheRequetes(physique, tailleCacheRequetes, cacheSucces, cacheEchecs, cacheEvictions)
+                : null;
+        return new ConnexionPoolee(physique, cache);
+    }
+
+    /** Appelé sous verrou : retire la connexion du décompte et la ferme. */
+    private void detruire(ConnexionPoolee connexion) {
+        total--;
+        connexion.fermerPhysiquement();
+    }
+
+    private void liberer() {
+        verrou.lock();
+        try {
+            total--;
+            disponible.signal();
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    private void prechauffer() {
+        while (true) {
+            verrou.lock();
+            try {
+                if (ferme || total >= tailleMin)
+                    return;
+                total++;
+            } finally {
+                verrou.unlock();
+            }
+            try {
+                ConnexionPoolee connexion = ouvrir();
+                verrou.lock();
+                try {
+                    inactives.addLast(connexion);
+                    disponible.signal();
+                } finally {
+                    verrou.unlock();
+                }
+            } catch (SQLException e) {
+                liberer();
+                System.err.println("Pool : préchauffage impossible : " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /** Tâche périodique : expiration, remplissage du minimum et détection des fuites. */
+    void entretenir() {
+        verrou.lock();
+        try {
+            inactives.removeIf(c -> {
+                if (c.estExpiree(dureeVieMaxMs)) {
+                    nbExpirations.incrementAndGet();
+                    detruire(c);
+                    return true;
+                }
+                return false;
+            });
+        } finally {
+            verrou.unlock();
+        }
+        prechauffer();
+
+        if (seuilFuiteMs > 0) {
+            for (ConnexionPoolee c : empruntees) {
+                if (c.empruntDepuis() > seuilFuiteMs && c.signalerFuite()) {
+                    nbFuites.incrementAndGet();
+                    System.err.println("Pool : fuite probable, connexion empruntée depuis " + c.empruntDepuis()
+                            + " ms sans être restituée.");
+                    Throwable pile = c.pileEmprunt();
+                    if (pile != null)
+                        pile.printStackTrace();
+                    else
+                        System.err.println("Pool : -Dstock.pool.tracerEmprunts=true pour localiser l'emprunt.");
+                }
+            }
+        }
+    }
+
+    private Connection poignee(ConnexionPoolee connexion) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new PoigneeHandler(connexion));
+    }
+
+    public int getActives() {
+        return empruntees.size();
+    }
+
+    public int getInactives() {
+        verrou.lock();
+        try {
+            return inactives.size();
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    public int getTotal() {
+        verrou.lock();
+        try {
+            return total;
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    public int getEnAttente() {
+        verrou.lock();
+        try {
+            return enAttente;
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    public long getNbEmprunts() {
+        return nbEmprunts.get();
+    }
+
+    public long getNbExpirations() {
+        return nbExpirations.get();
+    }
+
+    public long getNbFuites() {
+        return nbFuites.get();
+    }
+
+    public double getAttenteMoyenneMs() {
+        long n = nbEmprunts.get();
+        return n == 0 ? 0 : attenteTotaleNanos.get() / 1_000_000.0 / n;
+    }
+
+    public double getAttenteMaxMs() {
+        return attenteMaxNanos.get() / 1_000_000.0;
+    }
+
+    public long getCacheSucces() {
+        return cacheSucces.get();
+    }
+
+    public long getCacheEchecs() {
+        return cacheEchecs.get();
+    }
+
+    public long getCacheEvictions() {
+        return cacheEvictions.get();
+    }
+
+    public double getCacheRatio() {
+        long s = cacheSucces.get(), total = s + cacheEchecs.get();
+        return total == 0 ? 0 : (double) s / total;
+    }
+
+    public String statistiques() {
+        return String.format("Pool{actives=%d, inactives=%d, total=%d/%d, attente=%d, emprunts=%d, "
+                + "attenteMoy=%.2fms, attenteMax=%.2fms, expirations=%d, fuites=%d, "
+                + "cacheRequetes=%d succès/%d échecs/%d évictions}",
+                getActives(), getInactives(), getTotal(), tailleMax, getEnAttente(), getNbEmprunts(),
+                getAttenteMoyenneMs(), getAttenteMaxMs(), getNbExpirations(), getNbFuites(),
+                getCacheSucces(), getCacheEchecs(), getCacheEvictions());
+    }
+
+    @Override
+    public void close() {
+        maintenance.shutdownNow();
+        verrou.lock();
+        try {
+            ferme = true;
+            ConnexionPoolee c;
+            while ((c = inactives.pollFirst()) != null)
+                detruire(c);
+            disponible.signalAll();
+        } finally {
+            verrou.unlock();
+        }
+    }
+
+    /**
+     * Poignée remise à l'appelant : close() restitue la connexion au pool,
+     * tout appel après restitution échoue au lieu de toucher une connexion
+     * déjà prêtée à quelqu'un d'autre.
+     */
+    private class PoigneeHandler implements InvocationHandler {
+        private final ConnexionPoolee connexion;
+        private boolean restituee = false;
+
+        PoigneeHandler(ConnexionPoolee connexion) {
+            this.connexion = connexion;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!restituee) {
+                        restituee = true;
+                        restituer(connexion);
+                    }
+                    return null;
+                case "isClosed":
+                    return restituee || connexion.physique().isClosed();
+                case "setReadOnly":
+                    if (!restituee)
+                        connexion.lectureSeuleModifiee((Boolean) args[0]);
+                    break;
+                case "setTransactionIsolation":
+                    if (!restituee)
+                        connexion.isolationModifiee();
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConnexionPoolee[" + connexion.physique() + (restituee ? ", restituée]" : "]");
+                default:
+                    break;
+            }
+            if (restituee)
+                throw new SQLException("Connexion déjà restituée au pool.");
+            Object resultat;
+            if (connexion.cacheRequetes() != null && method.getName().equals("prepareStatement")
+                    && args.length == 1) {
+                resultat = connexion.cacheRequetes().preparer((String) args[0], (Connection) proxy);
+            } else {
+                try {
+                    resultat = method.invoke(connexion.physique(), args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+            if (resultat instanceof Statement && StockMetrics.chronometrageActif()) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return RequeteChronometree.envelopper((Statement) resultat, method.getReturnType(), sql,
+                        (Connection) proxy);
+            }
+            return resultat;
+        }
+    }
+}
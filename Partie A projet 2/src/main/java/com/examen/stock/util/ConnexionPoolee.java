@@ -0,0 +1,135 @@
+package com.examen.stock.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Connexion physique gérée par {@link ConnectionPool}, avec les informations
+ * nécessaires à l'expiration et à la détection des fuites.
+ */
+class ConnexionPoolee {
+    private static final int DELAI_VALIDATION_S = 2;
+
+    private final Connection physique;
+    private final CacheRequetes cacheRequetes;
+    private final long creeeLe = System.currentTimeMillis();
+    private volatile long derniereUtilisation = creeeLe;
+    private volatile long empruntLe;
+    private volatile Throwable pileEmprunt;
+    private volatile boolean fuiteSignalee;
+    // État de session modifié par l'emprunteur, remis à zéro à la restitution
+    // sans interroger le serveur (isReadOnly() coûte un aller-retour MySQL)
+    private boolean lectureSeule;
+    private int isolationInitiale = -1;
+
+    ConnexionPoolee(Connection physique, CacheRequetes cacheRequetes) {
+        this.physique = physique;
+        this.cacheRequetes = cacheRequetes;
+    }
+
+    Connection physique() {
+        return physique;
+    }
+
+    /** Cache de requêtes préparées de cette connexion, ou null s'il est désactivé. */
+    CacheRequetes cacheRequetes() {
+        return cacheRequetes;
+    }
+
+    /** pile : lieu de l'emprunt, seulement si le traçage des emprunts est activé. */
+    void empruntee(Throwable pile) {
+        this.empruntLe = System.currentTimeMillis();
+        this.pileEmprunt = pile;
+        this.fuiteSignalee = false;
+    }
+
+    /** Appelé par la poignée avant de transmettre setReadOnly. */
+    void lectureSeuleModifiee(boolean lectureSeule) {
+        this.lectureSeule = lectureSeule;
+    }
+
+    /** Appelé par la poignée avant de transmettre setTransactionIsolation. */
+    void isolationModifiee() throws SQLException {
+        if (isolationInitiale < 0)
+            isolationInitiale = physique.getTransactionIsolation();
+    }
+
+    void touchee() {
+        this.derniereUtilisation = System.currentTimeMillis();
+    }
+
+    long inactiveDepuis() {
+        return System.currentTimeMillis() - derniereUtilisation;
+    }
+
+    long empruntDepuis() {
+        return System.currentTimeMillis() - empruntLe;
+    }
+
+    Throwable pileEmprunt() {
+        return pileEmprunt;
+    }
+
+    /** Retourne vrai une seule fois par emprunt, pour ne signaler chaque fuite qu'une fois. */
+    boolean signalerFuite() {
+        if (fuiteSignalee)
+            return false;
+        fuiteSignalee = true;
+        return true;
+    }
+
+    boolean estExpiree(long dureeVieMaxMs) {
+        return dureeVieMaxMs > 0 && System.currentTimeMillis() - creeeLe > dureeVieMaxMs;
+    }
+
+    boolean estValide() {
+        try {
+            return physique.isValid(DELAI_VALIDATION_S);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Remet la connexion dans l'état attendu par le prochain emprunteur
+     * (auto-commit actif, transaction en cours annulée, lecture seule et
+     * isolation d'origine). Seul l'état modifié pendant l'emprunt est remis,
+     * sans requête au serveur sinon. Retourne faux si la connexion est
+     * inutilisable et doit être détruite.
+     */
+    boolean reinitialiser() {
+        try {
+            if (physique.isClosed())
+                return false;
+            if (cacheRequetes != null)
+                cacheRequetes.liberer();
+            if (!physique.getAutoCommit()) {
+                physique.rollback();
+                physique.setAutoCommit(true);
+            }
+            if (lectureSeule) {
+                physique.setReadOnly(false);
+                lectureSeule = false;
+            }
+            if (isolationInitiale >= 0) {
+                physique.setTransactionIsolation(isolationInitiale);
+                isolationInitiale = -1;
+            }
+            physique.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            System.err.println("Pool : connexion rejetée à la restitution : " + e.getMessage());
+            return false;
+        }
+    }
+
+    void fermerPhysiquement() {
+        if (cacheRequetes != null)
+            cacheRequetes.vider();
+        try {
+            physique.close();
+        } catch (SQLException e) {
+            System.err.println("Pool : erreur à la fermeture d'une connexion : " + e.getMessage());
+        }
+    }
+}
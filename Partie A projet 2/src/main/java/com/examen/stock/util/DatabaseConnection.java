@@ -1,25 +1,72 @@
 package com.examen.stock.util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class DatabaseConnection {
     private static final String HOST = System.getenv("DB_HOST") != null ? System.getenv("DB_HOST") : "localhost";
-    private static final String URL = "jdbc:mysql://" + HOST + ":3306/gestion_stock";
-    private static final String USER = "root";
-    private static final String PASSWORD = ""; // Ajuster si nécessaire
-    private static Connection connection = null;
+    // Préparation côté serveur : combinée au cache de requêtes du pool, chaque
+    // requête n'est préparée qu'une fois par connexion physique.
+    private static final boolean SERVER_PREPARE = Boolean.parseBoolean(
+            System.getProperty("stock.jdbc.serverPrepare", "true"));
+    // rewriteBatchedStatements : les executeBatch() d'INSERT partent en INSERT multi-lignes
+    // useCursorFetch : un setFetchSize(n) lit les gros résultats par paquets de n lignes
+    // useLocalSessionState : auto-commit, lecture seule et isolation lus sans aller-retour serveur
+    private static final String URL_MYSQL = "jdbc:mysql://" + HOST + ":3306/gestion_stock"
+            + "?useServerPrepStmts=" + SERVER_PREPARE
+            + "&rewriteBatchedStatements=true"
+            + "&useCursorFetch=true"
+            + "&useLocalSessionState=true";
+    // Autre base (tests sur H2 en mémoire...) : -Dstock.jdbc.url=jdbc:h2:mem:stock ...
+    private static final String URL = System.getProperty("stock.jdbc.url", URL_MYSQL);
+    private static final String USER = System.getProperty("stock.jdbc.user", "root");
+    private static final String PASSWORD = System.getProperty("stock.jdbc.password", ""); // Ajuster si nécessaire
 
+    // Dimensionnement du pool, ajustable par propriétés système (-Dstock.pool.max=20 ...)
+    private static final int POOL_MIN = Integer.getInteger("stock.pool.min", 2);
+    private static final int POOL_MAX = Integer.getInteger("stock.pool.max", 10);
+    private static final long DUREE_VIE_MAX_MS = Long.getLong("stock.pool.dureeVieMaxMs", 30 * 60_000L);
+    private static final long DELAI_ACQUISITION_MS = Long.getLong("stock.pool.delaiAcquisitionMs", 10_000L);
+    private static final long SEUIL_FUITE_MS = Long.getLong("stock.pool.seuilFuiteMs", 60_000L);
+    private static final boolean TRACER_EMPRUNTS = Boolean.getBoolean("stock.pool.tracerEmprunts");
+    private static final int CACHE_REQUETES = Integer.getInteger("stock.pool.cacheRequetes", 50);
+
+    private static volatile ConnectionPool pool = null;
+
+    /**
+     * Emprunte une connexion au pool partagé. La fermer (try-with-resources)
+     * la restitue au pool sans refaire de poignée de main MySQL.
+     */
     public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            try {
-                Class.forName("com.mysql.cj.jdbc.Driver");
-                connection = DriverManager.getConnection(URL, USER, PASSWORD);
-            } catch (ClassNotFoundException e) {
-                throw new SQLException("Pilote MySQL non trouvé", e);
+        return getPool().emprunter();
+    }
+
+    public static ConnectionPool getPool() throws SQLException {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DatabaseConnection.class) {
+                p = pool;
+                if (p == null) {
+                    try {
+                        Class.forName("com.mysql.cj.jdbc.Driver");
+                    } catch (ClassNotFoundException e) {
+                        throw new SQLException("Pilote MySQL non trouvé", e);
+                    }
+                    p = new ConnectionPool(URL, USER, PASSWORD, POOL_MIN, POOL_MAX,
+                            DUREE_VIE_MAX_MS, DELAI_ACQUISITION_MS, SEUIL_FUITE_MS, TRACER_EMPRUNTS, CACHE_REQUETES);
+                    pool = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    public static void shutdown() {
+        synchronized (DatabaseConnection.class) {
+            if (pool != null) {
+                pool.close();
+                pool = null;
             }
         }
-        return connection;
     }
 }
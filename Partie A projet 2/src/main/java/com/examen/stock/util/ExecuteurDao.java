@@ -0,0 +1,144 @@
+package com.examen.stock.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exécuteur dédié aux appels DAO asynchrones. Sur Java 21+ chaque appel
+ * part sur un thread virtuel, le parallélisme étant borné par un sémaphore ;
+ * sinon un pool de threads plateforme de taille fixe. Dans les deux cas au
+ * plus parallelisme + capaciteFile appels sont acceptés à la fois : une
+ * soumission au-delà est rejetée (RejectedExecutionException) plutôt que
+ * mise en attente sans fin.
+ */
+public final class ExecuteurDao implements Executor, AutoCloseable {
+    // Au-delà de la taille du pool de connexions, les appels attendraient de toute façon une connexion
+    private static final int PARALLELISME = Integer.getInteger("stock.async.parallelisme",
+            Integer.getInteger("stock.pool.max", 10));
+    private static final int CAPACITE_FILE = Integer.getInteger("stock.async.file", 1000);
+
+    private static volatile ExecuteurDao partage = null;
+
+    private final ExecutorService executeur;
+    private final Semaphore permis;
+    // Threads virtuels : appels acceptés (en cours ou en attente d'un permis)
+    private final Semaphore places;
+    private final boolean virtuel;
+
+    public ExecuteurDao(String nom, int parallelisme, int capaciteFile) {
+        if (parallelisme < 1)
+            throw new IllegalArgumentException("Parallélisme invalide : " + parallelisme);
+        ExecutorService threadsVirtuels = executeurVirtuel(nom);
+        this.virtuel = threadsVirtuels != null;
+        if (virtuel) {
+            this.executeur = threadsVirtuels;
+            this.permis = new Semaphore(parallelisme);
+            this.places = new Semaphore(parallelisme + capaciteFile);
+        } else {
+            AtomicInteger numero = new AtomicInteger();
+            ThreadFactory fabrique = r -> {
+                Thread t = new Thread(r, nom + "-" + numero.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            };
+            this.executeur = new ThreadPoolExecutor(parallelisme, parallelisme, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(capaciteFile), fabrique, new ThreadPoolExecutor.AbortPolicy());
+            this.permis = null;
+            this.places = null;
+        }
+    }
+
+    /** Exécuteur partagé par les façades asynchrones, créé au premier usage. */
+    public static ExecuteurDao partage() {
+        ExecuteurDao e = partage;
+        if (e == null) {
+            synchronized (ExecuteurDao.class) {
+                e = partage;
+                if (e == null) {
+                    e = new ExecuteurDao("stock-dao", PARALLELISME, CAPACITE_FILE);
+                    partage = e;
+                    System.out.println("ExecuteurDao: " + (e.virtuel ? "threads virtuels" : "pool plateforme")
+                            + ", parallélisme " + PARALLELISME);
+                }
+            }
+        }
+        return e;
+    }
+
+    public static void arreterPartage() {
+        synchronized (ExecuteurDao.class) {
+            if (partage != null) {
+                partage.close();
+                partage = null;
+            }
+        }
+    }
+
+    /**
+     * Threads virtuels nommés, obtenus par réflexion pour que le projet
+     * reste compilable en Java 17. Retourne null si indisponibles.
+     */
+    private static ExecutorService executeurVirtuel(String nom) {
+        if (Runtime.version().feature() < 21)
+            return null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            Object virtuel = Thread.class.getMethod("ofVirtual").invoke(null);
+            virtuel = builder.getMethod("name", String.class, long.class).invoke(virtuel, nom + "-v", 1L);
+            ThreadFactory fabrique = (ThreadFactory) builder.getMethod("factory").invoke(virtuel);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, fabrique);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void execute(Runnable tache) {
+        if (permis == null) {
+            executeur.execute(tache);
+            return;
+        }
+        // Comme l'AbortPolicy du pool plateforme : rejet immédiat quand tout est pris
+        if (!places.tryAcquire())
+            throw new RejectedExecutionException("ExecuteurDao saturé : " + permis.getQueueLength()
+                    + " appels en attente d'un permis.");
+        try {
+            executeur.execute(() -> {
+                try {
+                    permis.acquire();
+                } catch (InterruptedException e) {
+                    places.release();
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    tache.run();
+                } finally {
+                    permis.release();
+                    places.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            places.release();
+            throw e;
+        }
+    }
+
+    public boolean estVirtuel() {
+        return virtuel;
+    }
+
+    @Override
+    public void close() {
+        executeur.shutdownNow();
+    }
+}
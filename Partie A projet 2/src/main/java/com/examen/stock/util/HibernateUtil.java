@@ -1,31 +1,173 @@
 package com.examen.stock.util;
 
 import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.BootstrapServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
 
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Démarrage de Hibernate hors du thread appelant : {@link #demarrer()} lance
+ * la construction de la SessionFactory sur un thread dédié et rend la main
+ * aussitôt, {@link #getSessionFactory()} attend qu'elle soit prête.
+ *
+ * Propriétés système :
+ * - stock.schema : update (défaut, celui de hibernate.cfg.xml), validate ou none ;
+ * - stock.mappings.cache : répertoire où les mappings hbm.xml analysés sont
+ *   sérialisés, relus tant que le fichier XML n'a pas changé ("" désactive).
+ */
 public class HibernateUtil {
-    private static final SessionFactory sessionFactory = buildSessionFactory();
+    private static final String[] MAPPINGS = {
+            "com/examen/stock/model/Produit.hbm.xml",
+            "com/examen/stock/model/Catalogue.hbm.xml"
+    };
+    private static final String MODE_SCHEMA = System.getProperty("stock.schema");
+    private static final String CACHE_MAPPINGS = System.getProperty("stock.mappings.cache",
+            System.getProperty("java.io.tmpdir") + File.separator + "gestion-stock-mappings");
+
+    private static volatile CompletableFuture<SessionFactory> demarrage;
+
+    /**
+     * Lance la construction de la SessionFactory si ce n'est pas déjà fait.
+     * Les appels suivants retournent le même handle ; après un échec (base
+     * injoignable...), le prochain appel relance une construction.
+     */
+    public static CompletableFuture<SessionFactory> demarrer() {
+        CompletableFuture<SessionFactory> d = demarrage;
+        if (d == null) {
+            synchronized (HibernateUtil.class) {
+                d = demarrage;
+                if (d == null) {
+                    d = new CompletableFuture<>();
+                    CompletableFuture<SessionFactory> resultat = d;
+                    Thread thread = new Thread(() -> {
+                        try {
+                            resultat.complete(buildSessionFactory());
+                        } catch (Throwable ex) {
+                            synchronized (HibernateUtil.class) {
+                                if (demarrage == resultat)
+                                    demarrage = null;
+                            }
+                            resultat.completeExceptionally(ex);
+                        }
+                    }, "demarrage-hibernate");
+                    thread.setDaemon(true);
+                    thread.start();
+                    demarrage = d;
+                }
+            }
+        }
+        return d;
+    }
 
     private static SessionFactory buildSessionFactory() {
         try {
-            String host = System.getenv("DB_HOST") != null ? System.getenv("DB_HOST") : "localhost";
-            String url = "jdbc:mysql://" + host + ":3306/gestion_stock";
+            long t0 = System.nanoTime();
+            // L'URL (DB_HOST) est résolue par DatabaseConnection, via PoolConnectionProvider
+            MetadataSources sources = new MetadataSources(new BootstrapServiceRegistryBuilder().build());
+            Configuration configuration = new Configuration(sources).configure();
+            if (MODE_SCHEMA != null)
+                configuration.setProperty(AvailableSettings.HBM2DDL_AUTO, MODE_SCHEMA);
+            long t1 = System.nanoTime();
 
-            Configuration configuration = new Configuration().configure();
-            configuration.setProperty("hibernate.connection.url", url);
+            int enCache = ajouterMappings(sources);
+            long t2 = System.nanoTime();
 
-            return configuration.buildSessionFactory();
-        } catch (Throwable ex) {
+            SessionFactory sessionFactory = configuration.buildSessionFactory();
+            long t3 = System.nanoTime();
+
+            System.out.printf("Hibernate prêt en %d ms (configuration %d ms, mappings %d ms dont %d/%d en cache,"
+                            + " SessionFactory et schéma '%s' %d ms), %d ms après le lancement de la JVM%n",
+                    (t3 - t0) / 1_000_000, (t1 - t0) / 1_000_000, (t2 - t1) / 1_000_000, enCache, MAPPINGS.length,
+                    configuration.getProperty(AvailableSettings.HBM2DDL_AUTO), (t3 - t2) / 1_000_000,
+                    ManagementFactory.getRuntimeMXBean().getUptime());
+            return sessionFactory;
+        } catch (RuntimeException ex) {
             System.err.println("Initial SessionFactory creation failed." + ex);
-            throw new ExceptionInInitializerError(ex);
+            throw new IllegalStateException("Création de la SessionFactory impossible : " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Ajoute les mappings hbm.xml. Ceux présents sous forme de fichier passent
+     * par le cache sérialisé de Hibernate (fichier .bin dans stock.mappings.cache,
+     * régénéré si le XML est plus récent) ; ceux lus depuis un jar sont analysés à chaque fois.
+     *
+     * @return le nombre de mappings relus depuis le cache
+     */
+    private static int ajouterMappings(MetadataSources sources) {
+        File repertoireCache = CACHE_MAPPINGS.isEmpty() ? null : new File(CACHE_MAPPINGS);
+        if (repertoireCache != null)
+            repertoireCache.mkdirs();
+        int enCache = 0;
+        for (String mapping : MAPPINGS) {
+            File xml = fichier(mapping);
+            if (repertoireCache == null || xml == null) {
+                sources.addResource(mapping);
+                continue;
+            }
+            File bin = new File(repertoireCache, xml.getName() + ".bin");
+            if (bin.exists() && bin.lastModified() >= xml.lastModified())
+                enCache++;
+            sources.addCacheableFile(xml, repertoireCache);
         }
+        return enCache;
     }
 
+    private static File fichier(String ressource) {
+        URL url = HibernateUtil.class.getClassLoader().getResource(ressource);
+        if (url == null || !"file".equals(url.getProtocol()))
+            return null;
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Attend la fin du démarrage (lancé ici s'il ne l'a pas été).
+     *
+     * @throws IllegalStateException si la construction a échoué, avec sa cause ;
+     *         l'appel suivant retente le démarrage
+     */
     public static SessionFactory getSessionFactory() {
-        return sessionFactory;
+        try {
+            return demarrer().join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Error err)
+                throw err;
+            throw new IllegalStateException("Hibernate indisponible : " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * SessionFactory si le démarrage a abouti, null sinon (en cours, en échec
+     * ou jamais lancé) : n'attend pas et ne lance aucun démarrage.
+     */
+    public static SessionFactory siDemarree() {
+        CompletableFuture<SessionFactory> d = demarrage;
+        return d != null && d.isDone() && !d.isCompletedExceptionally() ? d.join() : null;
     }
 
     public static void shutdown() {
-        getSessionFactory().close();
+        ExecuteurDao.arreterPartage();
+        CompletableFuture<SessionFactory> d = demarrage;
+        if (d != null) {
+            try {
+                d.join().close();
+            } catch (CompletionException e) {
+                // démarrage en échec : rien à fermer
+            }
+        }
+        DatabaseConnection.shutdown();
     }
 }
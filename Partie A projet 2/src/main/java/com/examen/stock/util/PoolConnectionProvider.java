@@ -0,0 +1,51 @@
+package com.examen.stock.util;
+
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Fournisseur de connexions Hibernate branché sur le pool partagé de
+ * {@link DatabaseConnection}, pour que Hibernate et les DAO JDBC puisent
+ * dans les mêmes connexions (hibernate.connection.provider_class).
+ */
+public class PoolConnectionProvider implements ConnectionProvider {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return DatabaseConnection.getConnection();
+    }
+
+    @Override
+    public void closeConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isAssignableFrom(PoolConnectionProvider.class)
+                || unwrapType.isAssignableFrom(ConnectionPool.class);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isAssignableFrom(PoolConnectionProvider.class))
+            return (T) this;
+        if (unwrapType.isAssignableFrom(ConnectionPool.class)) {
+            try {
+                return (T) DatabaseConnection.getPool();
+            } catch (SQLException e) {
+                throw new IllegalStateException("Pool de connexions indisponible", e);
+            }
+        }
+        throw new IllegalArgumentException("Type non supporté : " + unwrapType);
+    }
+}
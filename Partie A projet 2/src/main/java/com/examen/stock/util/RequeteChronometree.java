@@ -0,0 +1,63 @@
+package com.examen.stock.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Requête remise par une poignée du pool : chaque execute* est chronométré
+ * et signalé à {@link StockMetrics} (journal des requêtes lentes).
+ */
+final class RequeteChronometree implements InvocationHandler {
+    private final Statement cible;
+    private final String sql;
+    private final Connection connexion;
+
+    private RequeteChronometree(Statement cible, String sql, Connection connexion) {
+        this.cible = cible;
+        this.sql = sql;
+        this.connexion = connexion;
+    }
+
+    /** type : interface retournée par la méthode de Connection (Statement, PreparedStatement...). */
+    static Object envelopper(Statement cible, Class<?> type, String sql, Connection connexion) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                new RequeteChronometree(cible, sql, connexion));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String nom = method.getName();
+        switch (nom) {
+            case "getConnection":
+                return connexion;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                break;
+        }
+        if (!nom.startsWith("execute"))
+            return deleguer(method, args);
+        long debut = System.nanoTime();
+        try {
+            return deleguer(method, args);
+        } finally {
+            // Statement.execute(sql) : le SQL est l'argument, sinon celui de la préparation
+            String texte = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+            StockMetrics.signalerExecution(texte, (System.nanoTime() - debut) / 1_000_000);
+        }
+    }
+
+    private Object deleguer(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(cible, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.examen.stock.util;
+
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Métriques d'accès aux données : statistiques Hibernate (entités,
+ * requêtes, cache de second niveau, sessions et transactions), état du
+ * pool de connexions, mémoire directe (stocks hors tas) et journal des
+ * requêtes lentes.
+ *
+ * Le journal reçoit toute requête SQL (JDBC ou Hibernate, les deux passant
+ * par le pool) plus longue que stock.requetesLentes.seuilMs (200 ms par
+ * défaut, -1 pour désactiver le chronométrage). Il tourne sur
+ * stock.requetesLentes.fichiers fichiers de stock.requetesLentes.tailleMax
+ * octets.
+ */
+public final class StockMetrics {
+    private static final long SEUIL_LENTE_MS = Long.getLong("stock.requetesLentes.seuilMs", 200L);
+    private static final String FICHIER = System.getProperty("stock.requetesLentes.fichier",
+            "logs/requetes-lentes.%g.log");
+    private static final int TAILLE_MAX = Integer.getInteger("stock.requetesLentes.tailleMax", 1_000_000);
+    private static final int NB_FICHIERS = Integer.getInteger("stock.requetesLentes.fichiers", 5);
+
+    private static final AtomicLong requetesLentes = new AtomicLong();
+    private static volatile Logger journal = null;
+
+    private StockMetrics() {
+    }
+
+    public static Statistics hibernate() {
+        return HibernateUtil.getSessionFactory().getStatistics();
+    }
+
+    /** Part des lectures d'entités et de collections servies par le cache de second niveau. */
+    public static double ratioCacheSecondNiveau() {
+        Statistics stats = hibernate();
+        return ratio(stats.getSecondLevelCacheHitCount(), stats.getSecondLevelCacheMissCount());
+    }
+
+    /** Part des requêtes cachables servies par le cache de requêtes. */
+    public static double ratioCacheRequetes() {
+        Statistics stats = hibernate();
+        return ratio(stats.getQueryCacheHitCount(), stats.getQueryCacheMissCount());
+    }
+
+    public static long getNbRequetesLentes() {
+        return requetesLentes.get();
+    }
+
+    public static long getSeuilRequetesLentesMs() {
+        return SEUIL_LENTE_MS;
+    }
+
+    /** Remet à zéro les compteurs Hibernate et celui des requêtes lentes. */
+    public static void reinitialiser() {
+        hibernate().clear();
+        requetesLentes.set(0);
+    }
+
+    /** Rapport complet, une section par source de métriques. */
+    public static String rapport() {
+        Statistics stats = hibernate();
+        StringBuilder sb = new StringBuilder("--- MÉTRIQUES ---\n");
+        sb.append(String.format("Sessions : %d ouvertes / %d fermées | transactions : %d (%d réussies) "
+                + "| connexions : %d | flushs : %d | requêtes préparées : %d%n",
+                stats.getSessionOpenCount(), stats.getSessionCloseCount(), stats.getTransactionCount(),
+                stats.getSuccessfulTransactionCount(), stats.getConnectCount(), stats.getFlushCount(),
+                stats.getPrepareStatementCount()));
+
+        sb.append("Entités :\n");
+        for (String entite : stats.getEntityNames()) {
+            EntityStatistics e = stats.getEntityStatistics(entite);
+            sb.append(String.format("  %-32s chargées=%d lues=%d insérées=%d modifiées=%d supprimées=%d%n",
+                    entite, e.getLoadCount(), e.getFetchCount(), e.getInsertCount(), e.getUpdateCount(),
+                    e.getDeleteCount()));
+        }
+
+        sb.append("Requêtes :\n");
+        for (String requete : stats.getQueries()) {
+            QueryStatistics q = stats.getQueryStatistics(requete);
+            sb.append(String.format("  %5d exécutions, moy %4d ms, max %5d ms, %d lignes : %s%n",
+                    q.getExecutionCount(), q.getExecutionAvgTime(), q.getExecutionMaxTime(),
+                    q.getExecutionRowCount(), requete));
+        }
+
+        sb.append(String.format("Cache niveau 2 : %.1f%% | requêtes : %.1f%%%n",
+                100 * ratioCacheSecondNiveau(), 100 * ratioCacheRequetes()));
+        for (String region : stats.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics r = stats.getCacheRegionStatistics(region);
+            if (r == null)
+                continue;
+            sb.append(String.format("  %-32s succès=%d échecs=%d ajouts=%d%n", region,
+                    r.getHitCount(), r.getMissCount(), r.getPutCount()));
+        }
+
+        try {
+            sb.append(DatabaseConnection.getPool().statistiques()).append('\n');
+        } catch (Exception e) {
+            sb.append("Pool indisponible : ").append(e.getMessage()).append('\n');
+        }
+        for (BufferPoolMXBean tampons : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(tampons.getName()))
+                sb.append(String.format("Mémoire directe : %d tampons, %d Ko utilisés%n",
+                        tampons.getCount(), tampons.getMemoryUsed() / 1024));
+        }
+        sb.append(String.format("Requêtes lentes (>= %d ms) : %d%n", SEUIL_LENTE_MS, getNbRequetesLentes()));
+        return sb.toString();
+    }
+
+    static boolean chronometrageActif() {
+        return SEUIL_LENTE_MS >= 0;
+    }
+
+    /** Appelé par les requêtes du pool après chaque exécution. */
+    static void signalerExecution(String sql, long dureeMs) {
+        if (dureeMs < SEUIL_LENTE_MS)
+            return;
+        requetesLentes.incrementAndGet();
+        String texte = sql == null ? "?" : sql.replaceAll("\\s+", " ").trim();
+        journal().warning(dureeMs + " ms | " + texte);
+    }
+
+    private static Logger journal() {
+        Logger j = journal;
+        if (j == null) {
+            synchronized (StockMetrics.class) {
+                j = journal;
+                if (j == null) {
+                    j = Logger.getLogger("com.examen.stock.requetesLentes");
+                    j.setUseParentHandlers(false);
+                    try {
+                        Path parent = Path.of(FICHIER).toAbsolutePath().getParent();
+                        if (parent != null)
+                            Files.createDirectories(parent);
+                        FileHandler fichier = new FileHandler(FICHIER, TAILLE_MAX, NB_FICHIERS, true);
+                        fichier.setFormatter(new FormatLigne());
+                        j.addHandler(fichier);
+                    } catch (IOException e) {
+                        // Sans fichier, le journal retombe sur la console
+                        System.err.println("StockMetrics : journal des requêtes lentes indisponible : " + e.getMessage());
+                        j.setUseParentHandlers(true);
+                    }
+                    j.setLevel(Level.ALL);
+                    journal = j;
+                }
+            }
+        }
+        return j;
+    }
+
+    private static double ratio(long succes, long echecs) {
+        long total = succes + echecs;
+        return total == 0 ? 0 : (double) succes / total;
+    }
+
+    /** Une ligne par requête : horodatage | durée | SQL. */
+    private static final class FormatLigne extends Formatter {
+        @Override
+        public String format(LogRecord r) {
+            LocalDateTime quand = LocalDateTime.ofInstant(Instant.ofEpochMilli(r.getMillis()), ZoneId.systemDefault());
+            return quand + " | " + r.getMessage() + System.lineSeparator();
+        }
+    }
+}
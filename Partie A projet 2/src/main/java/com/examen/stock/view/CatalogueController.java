@@ -1,8 +1,10 @@
 package com.examen.stock.view;
 
+import com.examen.stock.dao.AsyncDao;
 import com.examen.stock.dao.CatalogueDaoHibernate;
 import com.examen.stock.model.Catalogue;
-import com.examen.stock.service.CatalogueService;
+import com.examen.stock.model.CatalogueResume;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -15,46 +17,60 @@ public class CatalogueController {
     @FXML
     private TextField catalogueNomField;
     @FXML
-    private TableView<Catalogue> catalogueTable;
+    private TableView<CatalogueResume> catalogueTable;
     @FXML
-    private TableColumn<Catalogue, Integer> colId;
+    private TableColumn<CatalogueResume, Integer> colId;
     @FXML
-    private TableColumn<Catalogue, String> colNom;
+    private TableColumn<CatalogueResume, String> colNom;
+    @FXML
+    private TableColumn<CatalogueResume, Long> colNbProduits;
 
-    private CatalogueService catalogueService = new CatalogueService(new CatalogueDaoHibernate());
-    private ObservableList<Catalogue> catalogueList = FXCollections.observableArrayList();
+    // Accès base hors du thread JavaFX ; les résultats reviennent via Platform.runLater
+    private CatalogueDaoHibernate catalogueDao = new CatalogueDaoHibernate();
+    private AsyncDao<Catalogue> catalogues = new AsyncDao<>(catalogueDao);
+    // La liste n'affiche que le résumé (une requête) ; les produits sont chargés au détail
+    private ObservableList<CatalogueResume> catalogueList = FXCollections.observableArrayList();
 
     @FXML
     public void initialize() {
         colId.setCellValueFactory(new PropertyValueFactory<>("id"));
         colNom.setCellValueFactory(new PropertyValueFactory<>("nom"));
+        colNbProduits.setCellValueFactory(new PropertyValueFactory<>("nbProduits"));
         handleRefresh();
     }
 
     @FXML
     public void handleAjouterCatalogue() {
-        try {
-            String nom = catalogueNomField.getText();
-            catalogueService.creerCatalogue(new Catalogue(nom));
-            handleRefresh();
-            catalogueNomField.clear();
-        } catch (Exception e) {
-            System.err.println("Erreur ajout catalogue: " + e.getMessage());
-        }
+        String nom = catalogueNomField.getText();
+        catalogues.create(new Catalogue(nom))
+                .thenRun(() -> Platform.runLater(this::handleRefresh))
+                .exceptionally(e -> signalerErreur("ajout catalogue", e));
+        catalogueNomField.clear();
     }
 
     @FXML
     public void handleRefresh() {
-        catalogueList.setAll(catalogueService.listerCatalogues());
-        catalogueTable.setItems(catalogueList);
+        catalogues.executer(catalogueDao::readResumes)
+                .thenAccept(liste -> Platform.runLater(() -> {
+                    catalogueList.setAll(liste);
+                    catalogueTable.setItems(catalogueList);
+                }))
+                .exceptionally(e -> signalerErreur("chargement catalogues", e));
+    }
+
+    private Void signalerErreur(String operation, Throwable e) {
+        System.err.println("Erreur " + operation + ": " + e.getMessage());
+        return null;
     }
 
     @FXML
     public void handleVoirDetails() {
-        Catalogue selected = catalogueTable.getSelectionModel().getSelectedItem();
+        CatalogueResume selected = catalogueTable.getSelectionModel().getSelectedItem();
         if (selected != null) {
-            System.out.println(
-                    "Détails du catalogue: " + selected.getNom() + " (" + selected.getProduits().size() + " produits)");
+            catalogues.executer(() -> catalogueDao.readDetail(selected.getNom()))
+                    .thenAccept(detail -> System.out.println("Détails du catalogue: " + detail.getNom()
+                            + " (" + detail.getProduits().size() + " produits) " + detail.getProduits()))
+                    .exceptionally(e -> signalerErreur("détail catalogue", e));
         }
     }
 }
@@ -1,15 +1,21 @@
 package com.examen.stock.view;
 
+import com.examen.stock.dao.AsyncDao;
+import com.examen.stock.dao.Page;
 import com.examen.stock.dao.ProduitDaoHibernate;
 import com.examen.stock.model.Produit;
-import com.examen.stock.service.ProduitService;
+import com.examen.stock.model.ProduitResume;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
+import javafx.scene.control.Button;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 
 public class ProduitController {
     @FXML
@@ -17,19 +23,35 @@ public class ProduitController {
     @FXML
     private TextField prixField;
     @FXML
-    private TableView<Produit> produitTable;
+    private TableView<ProduitResume> produitTable;
     @FXML
-    private TableColumn<Produit, String> colNom;
+    private TableColumn<ProduitResume, String> colNom;
     @FXML
-    private TableColumn<Produit, Double> colPrix;
+    private TableColumn<ProduitResume, Double> colPrix;
+    @FXML
+    private TableColumn<ProduitResume, String> colCatalogue;
+    @FXML
+    private Button pageSuivanteButton;
+
+    // Accès base hors du thread JavaFX ; les résultats reviennent via Platform.runLater
+    private ProduitDaoHibernate produitDao = new ProduitDaoHibernate();
+    private AsyncDao<Produit> produits = new AsyncDao<>(produitDao);
+    // Le tableau n'affiche que des projections (nom, prix, catalogue), pas des entités
+    private ObservableList<ProduitResume> produitList = FXCollections.observableArrayList();
 
-    private ProduitService produitService = new ProduitService(new ProduitDaoHibernate());
-    private ObservableList<Produit> produitList = FXCollections.observableArrayList();
+    // Pagination par clé : le tableau se remplit page par page au lieu de tout charger
+    private static final int TAILLE_PAGE = 100;
+    private String curseurPage;
+    // Futur rendu par AsyncDao : l'annuler interrompt la lecture en cours
+    private CompletableFuture<?> chargement = CompletableFuture.completedFuture(null);
+    // Numéro du dernier chargement demandé (thread JavaFX) : seul son résultat est affiché
+    private long generation = 0;
 
     @FXML
     public void initialize() {
         colNom.setCellValueFactory(new PropertyValueFactory<>("nom"));
         colPrix.setCellValueFactory(new PropertyValueFactory<>("prix"));
+        colCatalogue.setCellValueFactory(new PropertyValueFactory<>("catalogueNom"));
         handleRefresh();
     }
 
@@ -38,24 +60,71 @@ public class ProduitController {
         try {
             String nom = nomField.getText();
             double prix = Double.parseDouble(prixField.getText());
-            produitService.enregistrerProduit(new Produit(nom, prix));
-            handleRefresh();
+            produits.create(new Produit(nom, prix))
+                    .thenRun(() -> Platform.runLater(this::handleRefresh))
+                    .exceptionally(e -> signalerErreur("ajout produit", e));
             nomField.clear();
             prixField.clear();
-        } catch (Exception e) {
+        } catch (NumberFormatException e) {
             System.err.println("Erreur ajout produit: " + e.getMessage());
         }
     }
 
+    /**
+     * Recharge la première page. Le chargement encore en cours est annulé ;
+     * s'il aboutit malgré tout, son résultat arrive avec un numéro périmé et
+     * n'est pas affiché.
+     */
     @FXML
     public void handleRefresh() {
-        produitList.setAll(produitService.recupererTout());
-        produitTable.setItems(produitList);
+        chargement.cancel(true);
+        long numero = ++generation;
+        pageSuivanteButton.setDisable(true);
+        CompletableFuture<Page<ProduitResume>> lecture = produits.executer(
+                () -> produitDao.readResumes(null, TAILLE_PAGE));
+        chargement = lecture;
+        lecture.thenAccept(page -> Platform.runLater(() -> {
+            if (numero != generation)
+                return;
+            produitList.setAll(page.getElements());
+            produitTable.setItems(produitList);
+            suivre(page);
+        })).exceptionally(e -> signalerErreur("chargement", e));
+    }
+
+    @FXML
+    public void handlePageSuivante() {
+        if (curseurPage == null || !chargement.isDone())
+            return;
+        pageSuivanteButton.setDisable(true);
+        String apres = curseurPage;
+        long numero = generation;
+        CompletableFuture<Page<ProduitResume>> lecture = produits.executer(
+                () -> produitDao.readResumes(apres, TAILLE_PAGE));
+        chargement = lecture;
+        lecture.thenAccept(page -> Platform.runLater(() -> {
+            if (numero != generation)
+                return;
+            produitList.addAll(page.getElements());
+            suivre(page);
+        })).exceptionally(e -> signalerErreur("page suivante", e));
+    }
+
+    private Void signalerErreur(String operation, Throwable e) {
+        if (e instanceof CancellationException || e.getCause() instanceof CancellationException)
+            return null; // remplacé par un chargement plus récent
+        System.err.println("Erreur " + operation + " produits: " + e.getMessage());
+        return null;
+    }
+
+    private void suivre(Page<ProduitResume> page) {
+        curseurPage = page.hasNext() ? page.getCurseurSuivant() : null;
+        pageSuivanteButton.setDisable(curseurPage == null);
     }
 
     @FXML
     public void handleSupprimerProduit() {
-        Produit selected = produitTable.getSelectionModel().getSelectedItem();
+        ProduitResume selected = produitTable.getSelectionModel().getSelectedItem();
         if (selected != null) {
             // Logique de suppression à implémenter si besoin dans le DAO
             System.out.println("Suppression demandée pour: " + selected.getNom());
@@ -0,0 +1,166 @@
+package com.examen.stock;
+
+import com.examen.stock.exception.StockException;
+import com.examen.stock.model.Produit;
+import com.examen.stock.service.GestionnaireStock;
+import com.examen.stock.service.GestionnaireStockConcurrent;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compare le stock mémoire concurrent à un GestionnaireStock dont chaque
+ * appel est synchronisé sur un verrou unique, de 1 à 64 threads.
+ * Mélange d'opérations : 80 % recherche, 15 % mise à jour de prix,
+ * 4 % rang de prix, 1 % tranche de prix.
+ *
+ * Propriétés : bench.produits (100000), bench.dureeMs par mesure (1000).
+ * Rangé dans les sources de test, hors du jar livré ; lancement :
+ * mvn test-compile exec:java@benchmark -Dbench.produits=100000
+ */
+public class BenchmarkStock {
+    private static final int PRODUITS = Integer.getInteger("bench.produits", 100_000);
+    private static final long DUREE_MS = Long.getLong("bench.dureeMs", 1000);
+    private static final int[] THREADS = { 1, 2, 4, 8, 16, 32, 64 };
+    private static final double PRIX_MAX = 1000;
+
+    /** Les opérations mesurées, communes aux deux implémentations. */
+    private interface Cible {
+        Produit trouver(String nom) throws StockException;
+
+        void mettreAJour(Produit p) throws StockException;
+
+        int rang(double prix);
+
+        int tranche(double min, double max);
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Produit> produits = new ArrayList<>(PRODUITS);
+        for (int i = 0; i < PRODUITS; i++)
+            produits.add(new Produit("P" + i, ThreadLocalRandom.current().nextDouble(PRIX_MAX)));
+
+        GestionnaireStock<Produit> simple = new GestionnaireStock<>();
+        simple.ajouterTous(produits);
+        Object verrou = new Object();
+        Cible synchronise = new Cible() {
+            @Override
+            public Produit trouver(String nom) throws StockException {
+                synchronized (verrou) {
+                    return simple.trouverParNom(nom);
+                }
+            }
+
+            @Override
+            public void mettreAJour(Produit p) throws StockException {
+                synchronized (verrou) {
+                    simple.mettreAJour(p);
+                }
+            }
+
+            @Override
+            public int rang(double prix) {
+                synchronized (verrou) {
+                    return simple.rangPrix(prix);
+                }
+            }
+
+            @Override
+            public int tranche(double min, double max) {
+                synchronized (verrou) {
+                    return simple.filtrerParPrixEntre(min, max).size();
+                }
+            }
+        };
+
+        GestionnaireStockConcurrent<Produit> concurrent = new GestionnaireStockConcurrent<>();
+        concurrent.ajouterTous(produits);
+        Cible partitionne = new Cible() {
+            @Override
+            public Produit trouver(String nom) throws StockException {
+                return concurrent.trouverParNom(nom);
+            }
+
+            @Override
+            public void mettreAJour(Produit p) throws StockException {
+                concurrent.mettreAJour(p);
+            }
+
+            @Override
+            public int rang(double prix) {
+                return concurrent.rangPrix(prix);
+            }
+
+            @Override
+            public int tranche(double min, double max) {
+                return concurrent.filtrerParPrixEntre(min, max).size();
+            }
+        };
+
+        // Les traces "Maj de : ..." de GestionnaireStock fausseraient la mesure
+        PrintStream sortie = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            mesurer(synchronise, 4);
+            mesurer(partitionne, 4); // préchauffage JIT
+            sortie.printf("%d produits, %d ms par mesure%n", PRODUITS, DUREE_MS);
+            sortie.printf("%8s %18s %18s %8s%n", "threads", "synchronisé op/s", "concurrent op/s", "gain");
+            for (int threads : THREADS) {
+                double a = mesurer(synchronise, threads);
+                double b = mesurer(partitionne, threads);
+                sortie.printf("%8d %18.0f %18.0f %7.1fx%n", threads, a, b, b / a);
+            }
+        } finally {
+            System.setOut(sortie);
+        }
+    }
+
+    private static double mesurer(Cible cible, int threads) throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Thread> travailleurs = new ArrayList<>();
+        long[] fin = new long[1];
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom aleatoire = ThreadLocalRandom.current();
+                long n = 0;
+                try {
+                    depart.await();
+                    while (System.nanoTime() < fin[0]) {
+                        int tirage = aleatoire.nextInt(100);
+                        String nom = "P" + aleatoire.nextInt(PRODUITS);
+                        if (tirage < 80) {
+                            cible.trouver(nom);
+                        } else if (tirage < 95) {
+                            cible.mettreAJour(new Produit(nom, aleatoire.nextDouble(PRIX_MAX)));
+                        } else if (tirage < 99) {
+                            cible.rang(aleatoire.nextDouble(PRIX_MAX));
+                        } else {
+                            double min = aleatoire.nextDouble(PRIX_MAX);
+                            cible.tranche(min, min + 1);
+                        }
+                        n++;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (StockException e) {
+                    throw new IllegalStateException(e);
+                }
+                operations.add(n);
+            });
+            travailleurs.add(thread);
+            thread.start();
+        }
+        long debut = System.nanoTime();
+        fin[0] = debut + DUREE_MS * 1_000_000;
+        depart.countDown();
+        for (Thread thread : travailleurs)
+            thread.join();
+        return operations.sum() * 1e9 / (System.nanoTime() - debut);
+    }
+}
@@ -0,0 +1,48 @@
+package com.examen.stock.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import junit.framework.TestCase;
+
+public class PageTest extends TestCase {
+    private static final Function<String, String> NOM = s -> s;
+
+    public void testLigneEnTropSignaleLaPageSuivante() {
+        Page<String> page = Page.depuis(new ArrayList<>(List.of("a", "b", "c", "d")), 3, NOM);
+        assertEquals(List.of("a", "b", "c"), page.getElements());
+        assertTrue(page.hasNext());
+        assertEquals("c", page.getCurseurSuivant());
+    }
+
+    public void testDernierePage() {
+        Page<String> page = Page.depuis(new ArrayList<>(List.of("a", "b")), 3, NOM);
+        assertEquals(List.of("a", "b"), page.getElements());
+        assertFalse(page.hasNext());
+        assertEquals("b", page.getCurseurSuivant());
+    }
+
+    public void testPageExactementPleine() {
+        Page<String> page = Page.depuis(new ArrayList<>(List.of("a", "b", "c")), 3, NOM);
+        assertEquals(3, page.getElements().size());
+        assertFalse(page.hasNext());
+    }
+
+    public void testPageVideSansCurseur() {
+        Page<String> page = Page.depuis(new ArrayList<String>(), 10, NOM);
+        assertTrue(page.getElements().isEmpty());
+        assertFalse(page.hasNext());
+        assertNull(page.getCurseurSuivant());
+    }
+
+    public void testElementsNonModifiables() {
+        Page<String> page = Page.depuis(new ArrayList<>(List.of("a")), 5, NOM);
+        try {
+            page.getElements().add("b");
+            fail("Les éléments d'une page ne doivent pas être modifiables");
+        } catch (UnsupportedOperationException e) {
+            // attendu
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.examen.stock.dao;
+
+import com.examen.stock.exception.ConflitVersionException;
+import com.examen.stock.exception.StockException;
+import com.examen.stock.model.Produit;
+import com.examen.stock.util.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class ProduitDaoImplTest extends TestCase {
+
+    @Override
+    protected void setUp() throws SQLException {
+        creerTable();
+    }
+
+    /** Les lignes trouvées par l'UPDATE sont des mises à jour, les autres des insertions, lot par lot. */
+    public void testUpsertCompteInsertionsEtMisesAJour() throws StockException {
+        ProduitDaoImpl dao = new ProduitDaoImpl(3);
+        dao.createAll(List.of(new Produit("A", 1), new Produit("B", 2)));
+
+        RapportBatch rapport = dao.upsertAll(List.of(new Produit("A", 10), new Produit("C", 3),
+                new Produit("b", 20), new Produit("D", 4)));
+        assertTrue(rapport.estComplet());
+        assertEquals(2, rapport.getLignesInserees());
+        assertEquals(2, rapport.getLignesMisesAJour());
+
+        Produit a = dao.readByName("A");
+        assertEquals(10.0, a.getPrix(), 0.0);
+        assertEquals(1, a.getVersion());
+        assertEquals(20.0, dao.readByName("B").getPrix(), 0.0);
+        assertEquals(0, dao.readByName("D").getVersion());
+        assertEquals(4, dao.statistiques().getNombre());
+    }
+
+    /** Rejouer le même upsert ne crée aucun doublon. */
+    public void testUpsertRejouable() throws StockException {
+        ProduitDaoImpl dao = new ProduitDaoImpl();
+        List<Produit> lot = List.of(new Produit("A", 1), new Produit("B", 2));
+        assertEquals(2, dao.upsertAll(lot).getLignesInserees());
+        RapportBatch rejoue = dao.upsertAll(lot);
+        assertEquals(0, rejoue.getLignesInserees());
+        assertEquals(2, rejoue.getLignesMisesAJour());
+        assertEquals(2, dao.statistiques().getNombre());
+    }
+
+    /** Une écriture à partir d'une version dépassée est refusée, pas écrasée. */
+    public void testConflitDeVersion() throws StockException {
+        ProduitDaoImpl dao = new ProduitDaoImpl();
+        dao.create(new Produit("Lampe", 30));
+        Produit premier = dao.readByName("Lampe");
+        Produit second = dao.readByName("Lampe");
+
+        premier.setPrix(35);
+        dao.update(premier);
+        assertEquals(1, premier.getVersion());
+
+        second.setPrix(25);
+        try {
+            dao.update(second);
+            fail("ConflitVersionException attendue");
+        } catch (ConflitVersionException e) {
+            assertEquals("Lampe", e.getNom());
+            assertEquals(0, e.getVersionLue());
+        }
+        assertEquals(0, second.getVersion());
+        assertEquals(35.0, dao.readByName("Lampe").getPrix(), 0.0);
+    }
+
+    public void testMiseAJourDUnProduitInconnu() {
+        try {
+            new ProduitDaoImpl().update(new Produit("Inconnu", 1));
+            fail("StockException attendue");
+        } catch (ConflitVersionException e) {
+            fail("un produit absent n'est pas un conflit de version");
+        } catch (StockException e) {
+            // attendu
+        }
+    }
+
+    /** Table produits vide sur la base de test (H2 en mode MySQL, voir le pom). */
+    private static void creerTable() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS produits");
+            stmt.execute("CREATE TABLE produits (id INT AUTO_INCREMENT PRIMARY KEY, nom VARCHAR(100) NOT NULL UNIQUE, "
+                    + "prix DOUBLE NOT NULL, catalogue_id INT, version INT NOT NULL DEFAULT 0)");
+        }
+    }
+}
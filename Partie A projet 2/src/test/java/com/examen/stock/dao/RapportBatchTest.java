@@ -0,0 +1,54 @@
+package com.examen.stock.dao;
+
+import junit.framework.TestCase;
+
+public class RapportBatchTest extends TestCase {
+
+    public void testCumulDesLignesEtDesEchecs() {
+        RapportBatch rapport = new RapportBatch();
+        rapport.ajouterInserees(3);
+        rapport.ajouterInserees(2);
+        rapport.ajouterMisesAJour(4);
+        assertTrue(rapport.estComplet());
+
+        rapport.ajouterEchec(1, 10, "doublon");
+        assertEquals(5, rapport.getLignesInserees());
+        assertEquals(4, rapport.getLignesMisesAJour());
+        assertFalse(rapport.estComplet());
+        assertEquals(1, rapport.getEchecs().size());
+        RapportBatch.EchecLot echec = rapport.getEchecs().get(0);
+        assertEquals(1, echec.getIndexLot());
+        assertEquals(10, echec.getTaille());
+        assertEquals("doublon", echec.getMessage());
+    }
+
+    public void testAnnulerRemetLesCompteursAZero() {
+        RapportBatch rapport = new RapportBatch();
+        rapport.ajouterInserees(100);
+        rapport.ajouterMisesAJour(7);
+        rapport.annuler(2, 50, "connexion perdue");
+
+        assertEquals(0, rapport.getLignesInserees());
+        assertEquals(0, rapport.getLignesMisesAJour());
+        assertEquals(1, rapport.getEchecs().size());
+        assertEquals(2, rapport.getEchecs().get(0).getIndexLot());
+        assertTrue(rapport.getEchecs().get(0).getMessage().startsWith("transaction annulée : "));
+    }
+
+    public void testEchecsNonModifiables() {
+        RapportBatch rapport = new RapportBatch();
+        try {
+            rapport.getEchecs().add(new RapportBatch.EchecLot(0, 1, "x"));
+            fail("La liste des échecs ne doit pas être modifiable");
+        } catch (UnsupportedOperationException e) {
+            // attendu
+        }
+    }
+
+    public void testDebitNulSansChronometrage() {
+        RapportBatch rapport = new RapportBatch();
+        rapport.ajouterInserees(1000);
+        assertEquals(0, rapport.getDureeMs());
+        assertEquals(0.0, rapport.getDebit(), 0.0);
+    }
+}
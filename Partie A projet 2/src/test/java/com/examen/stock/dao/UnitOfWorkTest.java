@@ -0,0 +1,132 @@
+package com.examen.stock.dao;
+
+import com.examen.stock.exception.StockException;
+import com.examen.stock.model.Produit;
+import com.examen.stock.util.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class UnitOfWorkTest extends TestCase {
+    private final ProduitDaoImpl dao = new ProduitDaoImpl();
+
+    @Override
+    protected void setUp() throws SQLException {
+        creerTable();
+    }
+
+    public void testValidationUniqueEnFin() throws StockException {
+        List<String> validations = new ArrayList<>();
+        UnitOfWork.executer(() -> {
+            dao.create(new Produit("A", 1));
+            dao.create(new Produit("B", 2));
+            UnitOfWork.apresValidation(() -> validations.add("validée"));
+            assertTrue("rien n'est visible avant la validation", validations.isEmpty());
+            return null;
+        });
+        assertEquals(List.of("validée"), validations);
+        assertEquals(2, dao.statistiques().getNombre());
+        assertFalse(UnitOfWork.estActive());
+    }
+
+    /** Le doublon fait échouer le second create : le premier est annulé avec lui. */
+    public void testUneErreurAnnuleToutLeTravail() throws StockException {
+        List<String> validations = new ArrayList<>();
+        try {
+            UnitOfWork.executer(() -> {
+                dao.create(new Produit("A", 1));
+                UnitOfWork.apresValidation(() -> validations.add("validée"));
+                dao.create(new Produit("A", 2));
+                return null;
+            });
+            fail("StockException attendue");
+        } catch (StockException e) {
+            // attendu
+        }
+        assertTrue(validations.isEmpty());
+        assertEquals(0, dao.statistiques().getNombre());
+    }
+
+    /** Une unité imbriquée rejoint l'englobante ; son échec, même rattrapé, annule l'ensemble. */
+    public void testUniteImbriqueeRejointLEnglobante() throws StockException {
+        try {
+            UnitOfWork.executer(() -> {
+                Connection externe = connexionDeLUnite();
+                dao.create(new Produit("A", 1));
+                try {
+                    UnitOfWork.executer(() -> {
+                        assertSame(externe, connexionDeLUnite());
+                        dao.create(new Produit("B", 2));
+                        throw new StockException("échec interne");
+                    });
+                } catch (StockException e) {
+                    // rattrapé, mais l'unité reste marquée pour annulation
+                }
+                return null;
+            });
+            fail("StockException attendue");
+        } catch (StockException e) {
+            assertTrue(e.getMessage().contains("annulée"));
+        }
+        assertEquals(0, dao.statistiques().getNombre());
+    }
+
+    /** Un DAO qui annule sa connexion ne fait que marquer l'unité ; commit et close sont sans effet. */
+    public void testRollbackDUnDaoMarqueLUnite() throws StockException {
+        try {
+            UnitOfWork.executer(() -> {
+                dao.create(new Produit("A", 1));
+                Connection conn = connexionDeLUnite();
+                try {
+                    conn.commit();
+                    conn.close();
+                    conn.rollback();
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+                dao.create(new Produit("B", 2));
+                return null;
+            });
+            fail("StockException attendue");
+        } catch (StockException e) {
+            assertTrue(e.getMessage().contains("annulée"));
+        }
+        assertEquals(0, dao.statistiques().getNombre());
+    }
+
+    public void testHorsUniteChaqueAppelEstValide() throws StockException {
+        List<String> validations = new ArrayList<>();
+        dao.create(new Produit("A", 1));
+        UnitOfWork.apresValidation(() -> validations.add("immédiate"));
+        assertEquals(List.of("immédiate"), validations);
+        try {
+            dao.create(new Produit("A", 2));
+            fail("StockException attendue");
+        } catch (StockException e) {
+            // attendu
+        }
+        assertEquals(1, dao.statistiques().getNombre());
+    }
+
+    private static Connection connexionDeLUnite() {
+        try {
+            return UnitOfWork.ouvrirConnexion();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Table produits vide sur la base de test (H2 en mode MySQL, voir le pom). */
+    private static void creerTable() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS produits");
+            stmt.execute("CREATE TABLE produits (id INT AUTO_INCREMENT PRIMARY KEY, nom VARCHAR(100) NOT NULL UNIQUE, "
+                    + "prix DOUBLE NOT NULL, catalogue_id INT, version INT NOT NULL DEFAULT 0)");
+        }
+    }
+}
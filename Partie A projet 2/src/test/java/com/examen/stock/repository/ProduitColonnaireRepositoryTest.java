@@ -0,0 +1,184 @@
+package com.examen.stock.repository;
+
+import com.examen.stock.dao.Page;
+import com.examen.stock.dao.RapportBatch;
+import com.examen.stock.exception.StockException;
+import com.examen.stock.model.Catalogue;
+import com.examen.stock.model.Produit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+
+public class ProduitColonnaireRepositoryTest extends TestCase {
+
+    public void testRechercheSansDistinctionDeCasse() throws StockException {
+        ProduitColonnaireRepository stock = new ProduitColonnaireRepository();
+        stock.ajouter(new Produit("Clavier", 25));
+        assertEquals(25.0, stock.trouverParNom("CLAVIER").getPrix(), 0.0);
+        assertEquals("Clavier", stock.trouverParNom("clavier").getNom());
+        assertEquals(ProduitColonnaireRepository.hacher("Été"), ProduitColonnaireRepository.hacher("éTÉ"));
+        try {
+            stock.trouverParNom("Clavie");
+            fail("StockException attendue");
+        } catch (StockException e) {
+            // attendu
+        }
+    }
+
+    public void testAjoutDUnNomPresentRefuse() throws StockException {
+        ProduitColonnaireRepository stock = new ProduitColonnaireRepository();
+        stock.ajouter(new Produit("Souris", 10));
+        try {
+            stock.ajouter(new Produit("souris", 12));
+            fail("IllegalArgumentException attendue");
+        } catch (IllegalArgumentException e) {
+            // attendu
+        }
+        assertEquals(1, stock.taille());
+        assertEquals("Souris", stock.trouverParNom("SOURIS").getNom());
+        assertEquals(10.0, stock.trouverParNom("SOURIS").getPrix(), 0.0);
+    }
+
+    public void testAjouterTousSignaleLesNomsPresents() {
+        ProduitColonnaireRepository stock = new ProduitColonnaireRepository();
+        stock.ajouter(new Produit("A", 1));
+        RapportBatch rapport = stock.ajouterTous(List.of(new Produit("B", 2), new Produit("a", 3),
+                new Produit("C", 4), new Produit("b", 5)));
+        assertEquals(2, rapport.getLignesInserees());
+        assertEquals(0, rapport.getLignesMisesAJour());
+        assertEquals(2, rapport.getEchecs().size());
+        assertEquals(1, rapport.getEchecs().get(0).getIndexLot());
+        assertEquals(3, rapport.getEchecs().get(1).getIndexLot());
+        assertEquals(3, stock.taille());
+        assertEquals(7.0, stock.statistiques().getSomme(), 0.0);
+    }
+
+    public void testMettreAJourPrendLaCasseDuNouveauNom() throws StockException {
+        ProduitColonnaireRepository stock = new ProduitColonnaireRepository();
+        stock.ajouterTous(List.of(new Produit("ecran", 150), new Produit("Clavier", 20)));
+        stock.mettreAJour(new Produit("ECRAN", 140));
+        assertEquals(140.0, stock.trouverParNom("Ecran").getPrix(), 0.0);
+        assertEquals(List.of("Clavier", "ECRAN"), noms(stock.listerPage(null, 10).getElements()));
+        try {
+            stock.mettreAJour(new Produit("Inconnu", 1));
+            fail("StockException attendue");
+        } catch (StockException e) {
+            // attendu
+        }
+    }
+
+    /** La dernière ligne comble le trou d'une suppression ; l'arène est compactée en grossissant. */
+    public void testSuppressionsEtCroissance() throws StockException {
+        ProduitColonnaireRepository stock = new ProduitColonnaireRepository();
+        List<Produit> produits = new ArrayList<>();
+        for (int i = 0; i < 5000; i++)
+            produits.add(new Produit("produit-" + i, i));
+        stock.ajouterTous(produits);
+        for (int i = 0; i < 5000; i += 2)
+            stock.supprimer("PRODUIT-" + i);
+        for (int i = 0; i < 5000; i += 2)
+            stock.ajouter(new Produit("nouveau-nom-plus-long-" + i, i));
+
+        assertEquals(5000, stock.taille());
+        assertEquals("produit-4999", stock.trouverParNom("Produit-4999").getNom());
+        assertEquals("nouveau-nom-plus-long-4998", stock.trouverParNom("NOUVEAU-NOM-PLUS-LONG-4998").getNom());
+        assertEquals(4999.0, stock.statistiques().getMax(), 0.0);
+        assertEquals(0.0, stock.statistiques().getMin(), 0.0);
+        assertEquals(2500, stock.compterParPrixMin(2500));
+        try {
+            stock.trouverParNom("produit-0");
+            fail("StockException attendue");
+        } catch (StockException e) {
+            // attendu
+        }
+    }
+
+    public void testPaginationCompleteEtTriee() throws StockException {
+        ProduitColonnaireRepository stock = new ProduitColonnaireRepository();
+        List<String> noms = new ArrayList<>();
+        for (int i = 0; i < 250; i++)
+            noms.add((i % 2 == 0 ? "p" : "P") + i);
+        Collections.shuffle(noms, new Random(7));
+        for (String nom : noms)
+            stock.ajouter(new Produit(nom, 1));
+        assertEquals(trier(noms), parcourir(stock, 7));
+
+        // Les écritures entre deux parcours sont vues par le suivant
+        for (int i = 0; i < 250; i += 3) {
+            stock.supprimer("P" + i);
+            noms.remove((i % 2 == 0 ? "p" : "P") + i);
+        }
+        stock.ajouter(new Produit("zz", 1));
+        noms.add("zz");
+        assertEquals(trier(noms), parcourir(stock, 7));
+        assertEquals(trier(noms), parcourir(stock, 1000));
+
+        Page<Produit> page = stock.listerPage("p99", 1);
+        assertEquals("zz", page.getElements().get(0).getNom());
+        assertFalse(page.hasNext());
+    }
+
+    public void testTrouverParNomsIgnoreLesAbsents() {
+        ProduitColonnaireRepository stock = new ProduitColonnaireRepository();
+        stock.ajouterTous(List.of(new Produit("A", 1), new Produit("B", 2)));
+        Map<String, Produit> trouves = stock.trouverParNoms(List.of("a", "B", "Z", "b"));
+        assertEquals(2, trouves.size());
+        assertEquals(1.0, trouves.get("A").getPrix(), 0.0);
+        assertEquals(2.0, trouves.get("b").getPrix(), 0.0);
+    }
+
+    public void testProduitsRendusSontDesCopies() throws StockException {
+        ProduitColonnaireRepository stock = new ProduitColonnaireRepository();
+        Catalogue catalogue = new Catalogue("Bureau");
+        catalogue.setId(3);
+        Produit produit = new Produit("Lampe", 30);
+        produit.setCatalogue(catalogue);
+        produit.setVersion(2);
+        stock.ajouter(produit);
+
+        Produit lu = stock.trouverParNom("lampe");
+        assertNotSame(produit, lu);
+        assertSame(catalogue, lu.getCatalogue());
+        assertEquals(2, lu.getVersion());
+        lu.setPrix(1);
+        List<Produit> tous = stock.listerTout();
+        assertEquals(30.0, tous.get(0).getPrix(), 0.0);
+
+        // La vue de listerTout est figée au moment de l'appel
+        stock.mettreAJour(new Produit("LAMPE", 35));
+        assertEquals(30.0, tous.get(0).getPrix(), 0.0);
+        assertEquals("Lampe", tous.get(0).getNom());
+        assertEquals(35.0, stock.trouverParNom("lampe").getPrix(), 0.0);
+    }
+
+    private static List<String> parcourir(ProduitColonnaireRepository stock, int limite) {
+        List<String> noms = new ArrayList<>();
+        String apres = null;
+        while (true) {
+            Page<Produit> page = stock.listerPage(apres, limite);
+            noms.addAll(noms(page.getElements()));
+            if (!page.hasNext())
+                return noms;
+            apres = page.getCurseurSuivant();
+        }
+    }
+
+    private static List<String> trier(List<String> noms) {
+        TreeSet<String> tries = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        tries.addAll(noms);
+        return new ArrayList<>(tries);
+    }
+
+    private static List<String> noms(List<Produit> produits) {
+        List<String> noms = new ArrayList<>();
+        for (Produit produit : produits)
+            noms.add(produit.getNom());
+        return noms;
+    }
+}
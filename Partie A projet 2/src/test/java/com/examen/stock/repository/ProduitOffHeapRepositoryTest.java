@@ -0,0 +1,204 @@
+package com.examen.stock.repository;
+
+import com.examen.stock.dao.Page;
+import com.examen.stock.dao.RapportBatch;
+import com.examen.stock.exception.StockException;
+import com.examen.stock.model.Produit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+
+public class ProduitOffHeapRepositoryTest extends TestCase {
+    private final List<ProduitOffHeapRepository> ouverts = new ArrayList<>();
+
+    private ProduitOffHeapRepository ouvrir() {
+        ProduitOffHeapRepository stock = new ProduitOffHeapRepository();
+        ouverts.add(stock);
+        return stock;
+    }
+
+    @Override
+    protected void tearDown() {
+        for (ProduitOffHeapRepository stock : ouverts)
+            stock.close();
+    }
+
+    public void testRechercheSansDistinctionDeCasse() throws StockException {
+        ProduitOffHeapRepository stock = ouvrir();
+        stock.ajouter(new Produit("Clavier", 25));
+        assertEquals(25.0, stock.trouverParNom("CLAVIER").getPrix(), 0.0);
+        assertEquals("Clavier", stock.trouverParNom("clavier").getNom());
+        try {
+            stock.trouverParNom("Clavie");
+            fail("StockException attendue");
+        } catch (StockException e) {
+            // attendu
+        }
+    }
+
+    /** Les noms sont comparés sur leur UTF-8 stocké : caractères de 1 à 4 octets, casse repliée. */
+    public void testNomsNonAscii() throws StockException {
+        ProduitOffHeapRepository stock = ouvrir();
+        stock.ajouterTous(List.of(new Produit("Été", 1), new Produit("ſ1", 2), new Produit("Tasse \uD83D\uDE00", 3),
+                new Produit("\uD801\uDC00", 4)));
+        assertEquals(1.0, stock.trouverParNom("éTÉ").getPrix(), 0.0);
+        assertEquals(2.0, stock.trouverParNom("S1").getPrix(), 0.0);
+        assertEquals(3.0, stock.trouverParNom("TASSE \uD83D\uDE00").getPrix(), 0.0);
+        assertEquals(4.0, stock.trouverParNom("\uD801\uDC28").getPrix(), 0.0); // Deseret, minuscule hors BMP
+        assertEquals("Été", stock.trouverParNom("ÉTÉ").getNom());
+        assertTrue(stock.trouverParNoms(List.of("Ete", "Tasse", "Tasse \uD83D\uDE01")).isEmpty());
+    }
+
+    public void testAjoutDUnNomPresentRefuse() throws StockException {
+        ProduitOffHeapRepository stock = ouvrir();
+        stock.ajouter(new Produit("Souris", 10));
+        try {
+            stock.ajouter(new Produit("souris", 12));
+            fail("IllegalArgumentException attendue");
+        } catch (IllegalArgumentException e) {
+            // attendu
+        }
+        assertEquals(1, stock.taille());
+        assertEquals("Souris", stock.trouverParNom("SOURIS").getNom());
+        assertEquals(10.0, stock.trouverParNom("SOURIS").getPrix(), 0.0);
+    }
+
+    /** Nom déjà présent ou trop long : un échec d'un élément à sa position ; le reste du lot est ajouté. */
+    public void testAjouterTousSignaleLesRefus() throws StockException {
+        ProduitOffHeapRepository stock = ouvrir();
+        stock.ajouter(new Produit("A", 1));
+        String tropLong = "é".repeat(ProduitOffHeapRepository.TAILLE_NOM_MAX / 2 + 1);
+        RapportBatch rapport = stock.ajouterTous(List.of(new Produit("B", 2), new Produit("a", 3),
+                new Produit(tropLong, 4), new Produit("C", 5)));
+        assertEquals(2, rapport.getLignesInserees());
+        assertEquals(0, rapport.getLignesMisesAJour());
+        assertEquals(2, rapport.getEchecs().size());
+        assertEquals(1, rapport.getEchecs().get(0).getIndexLot());
+        assertEquals(2, rapport.getEchecs().get(1).getIndexLot());
+        assertEquals(1, rapport.getEchecs().get(1).getTaille());
+        assertEquals(3, stock.taille());
+        assertEquals(1.0, stock.trouverParNom("a").getPrix(), 0.0);
+    }
+
+    public void testNomTropLong() throws StockException {
+        ProduitOffHeapRepository stock = ouvrir();
+        String maximal = "x".repeat(ProduitOffHeapRepository.TAILLE_NOM_MAX);
+        stock.ajouter(new Produit(maximal, 1));
+        assertEquals(maximal, stock.trouverParNom(maximal.toUpperCase()).getNom());
+        try {
+            stock.ajouter(new Produit(maximal + "x", 2));
+            fail("IllegalArgumentException attendue");
+        } catch (IllegalArgumentException e) {
+            // attendu
+        }
+    }
+
+    /** La nouvelle casse peut changer la longueur en UTF-8 (ſ : 2 octets, S : 1). */
+    public void testMettreAJourPrendLaCasseDuNouveauNom() throws StockException {
+        ProduitOffHeapRepository stock = ouvrir();
+        stock.ajouterTous(List.of(new Produit("ſac", 15), new Produit("Clavier", 20)));
+        stock.mettreAJour(new Produit("SAC", 14));
+        assertEquals("SAC", stock.trouverParNom("sac").getNom());
+        assertEquals(14.0, stock.trouverParNom("ſAC").getPrix(), 0.0);
+        assertEquals(List.of("Clavier", "SAC"), noms(stock.listerPage(null, 10).getElements()));
+        try {
+            stock.mettreAJour(new Produit("Inconnu", 1));
+            fail("StockException attendue");
+        } catch (StockException e) {
+            // attendu
+        }
+    }
+
+    public void testPaginationCompleteEtTriee() throws StockException {
+        ProduitOffHeapRepository stock = ouvrir();
+        List<String> noms = new ArrayList<>();
+        for (int i = 0; i < 250; i++)
+            noms.add((i % 2 == 0 ? "é" : "É") + i);
+        Collections.shuffle(noms, new Random(7));
+        for (String nom : noms)
+            stock.ajouter(new Produit(nom, 1));
+        assertEquals(trier(noms), parcourir(stock, 7));
+
+        // Les écritures entre deux parcours sont vues par le suivant
+        for (int i = 0; i < 250; i += 3) {
+            stock.supprimer("É" + i);
+            noms.remove((i % 2 == 0 ? "é" : "É") + i);
+        }
+        stock.ajouter(new Produit("zz", 1));
+        noms.add("zz");
+        assertEquals(trier(noms), parcourir(stock, 7));
+        assertEquals(trier(noms), parcourir(stock, 1000));
+
+        Page<Produit> page = stock.listerPage("Y", 1);
+        assertEquals("zz", page.getElements().get(0).getNom());
+        assertTrue(page.hasNext());
+        assertTrue(stock.listerPage("\u00ff", 5).getElements().isEmpty());
+    }
+
+    public void testTrouverParNomsIgnoreLesAbsents() {
+        ProduitOffHeapRepository stock = ouvrir();
+        stock.ajouterTous(List.of(new Produit("A", 1), new Produit("B", 2)));
+        Map<String, Produit> trouves = stock.trouverParNoms(List.of("a", "B", "Z", "b"));
+        assertEquals(2, trouves.size());
+        assertEquals(1.0, trouves.get("A").getPrix(), 0.0);
+        assertEquals(2.0, trouves.get("b").getPrix(), 0.0);
+    }
+
+    public void testCompacterPuisClose() throws StockException {
+        ProduitOffHeapRepository stock = ouvrir();
+        List<Produit> produits = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++)
+            produits.add(new Produit("p" + i, i));
+        stock.ajouterTous(produits);
+        List<String> restants = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 10 == 0)
+                restants.add("p" + i);
+            else
+                stock.supprimer("p" + i);
+        }
+        // Page demandée avant compactage : l'ordre doit être refait après
+        assertEquals(1, stock.listerPage(null, 1).getElements().size());
+
+        assertTrue(stock.compacter() > 0);
+        assertEquals(1000, stock.taille());
+        assertEquals(9990.0, stock.trouverParNom("P9990").getPrix(), 0.0);
+        assertEquals(trier(restants), parcourir(stock, 64));
+        assertEquals(1000, stock.filtrerParPrixMin(0).size());
+
+        stock.close();
+        assertEquals(0, stock.octetsHorsTas());
+        assertEquals(0, stock.taille());
+    }
+
+    private static List<String> parcourir(ProduitOffHeapRepository stock, int limite) {
+        List<String> noms = new ArrayList<>();
+        String apres = null;
+        while (true) {
+            Page<Produit> page = stock.listerPage(apres, limite);
+            noms.addAll(noms(page.getElements()));
+            if (!page.hasNext())
+                return noms;
+            apres = page.getCurseurSuivant();
+        }
+    }
+
+    private static List<String> trier(List<String> noms) {
+        TreeSet<String> tries = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        tries.addAll(noms);
+        return new ArrayList<>(tries);
+    }
+
+    private static List<String> noms(List<Produit> produits) {
+        List<String> noms = new ArrayList<>();
+        for (Produit produit : produits)
+            noms.add(produit.getNom());
+        return noms;
+    }
+}
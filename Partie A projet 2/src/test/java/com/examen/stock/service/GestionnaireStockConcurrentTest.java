@@ -0,0 +1,140 @@
+package com.examen.stock.service;
+
+import com.examen.stock.dao.Page;
+import com.examen.stock.dao.RapportBatch;
+import com.examen.stock.exception.StockException;
+import com.examen.stock.model.Produit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+public class GestionnaireStockConcurrentTest extends TestCase {
+
+    public void testSegmentsInvalides() {
+        try {
+            new GestionnaireStockConcurrent<Produit>(0);
+            fail("IllegalArgumentException attendue");
+        } catch (IllegalArgumentException e) {
+            // attendu
+        }
+    }
+
+    public void testAjoutDUnNomPresentRefuse() throws StockException {
+        GestionnaireStockConcurrent<Produit> stock = new GestionnaireStockConcurrent<>(4);
+        stock.ajouter(new Produit("Souris", 10));
+        try {
+            stock.ajouter(new Produit("SOURIS", 12));
+            fail("IllegalArgumentException attendue");
+        } catch (IllegalArgumentException e) {
+            // attendu
+        }
+        assertEquals(10.0, stock.trouverParNom("souris").getPrix(), 0.0);
+        assertEquals(1, stock.taille());
+
+        RapportBatch rapport = stock.ajouterTous(List.of(new Produit("A", 1), new Produit("souris", 2),
+                new Produit("a", 3)));
+        assertEquals(1, rapport.getLignesInserees());
+        assertEquals(2, rapport.getEchecs().size());
+        assertEquals(2, rapport.getEchecs().get(1).getIndexLot());
+        assertEquals(2, stock.taille());
+    }
+
+    /** Chaque écriture est publiée dans l'index par prix avant de rendre la main. */
+    public void testIndexPrixLitSesPropresEcritures() throws StockException {
+        GestionnaireStockConcurrent<Produit> stock = new GestionnaireStockConcurrent<>();
+        for (int i = 0; i < 3000; i++)
+            stock.ajouter(new Produit("p" + i, i));
+        stock.mettreAJour(new Produit("p0", 5000));
+        stock.supprimer("p1");
+
+        assertEquals(2999, stock.taille());
+        assertEquals(1, stock.rangPrix(3)); // p2 seul : p0 renchéri, p1 supprimé
+        assertEquals("p0", stock.plusChers(1).get(0).getNom());
+        assertEquals("p2", stock.moinsChers(1).get(0).getNom());
+        assertEquals(5000.0, stock.percentilePrix(100).getAsDouble(), 0.0);
+        assertEquals(2999, stock.statistiques().getNombre());
+    }
+
+    public void testPaginationParNom() throws StockException {
+        GestionnaireStockConcurrent<Produit> stock = new GestionnaireStockConcurrent<>(2);
+        stock.ajouterTous(List.of(new Produit("d", 4), new Produit("B", 2), new Produit("a", 1),
+                new Produit("C", 3), new Produit("e", 5)));
+        Page<Produit> page = stock.listerPage(null, 2);
+        assertEquals(List.of("a", "B"), noms(page.getElements()));
+        stock.supprimer("c");
+        page = stock.listerPage(page.getCurseurSuivant(), 2);
+        assertEquals(List.of("d", "e"), noms(page.getElements()));
+        assertFalse(page.hasNext());
+    }
+
+    /** Après des écritures concurrentes, inventaire, index par prix et pagination contiennent les mêmes produits. */
+    public void testEcrituresConcurrentesCoherentes() throws Exception {
+        GestionnaireStockConcurrent<Produit> stock = new GestionnaireStockConcurrent<>(8);
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> travaux = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                travaux.add(threads.submit(() -> {
+                    ThreadLocalRandom aleatoire = ThreadLocalRandom.current();
+                    for (int i = 0; i < 20_000; i++) {
+                        String nom = (aleatoire.nextBoolean() ? "p" : "P") + aleatoire.nextInt(500);
+                        int operation = aleatoire.nextInt(10);
+                        try {
+                            if (operation < 4)
+                                stock.ajouter(new Produit(nom, aleatoire.nextInt(1000)));
+                            else if (operation < 7)
+                                stock.mettreAJour(new Produit(nom, aleatoire.nextInt(1000)));
+                            else if (operation < 9)
+                                stock.supprimer(nom);
+                            else
+                                stock.rangPrix(500);
+                        } catch (StockException | IllegalArgumentException e) {
+                            // nom absent, ou déjà présent, à ce moment : attendu
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> travail : travaux)
+                travail.get();
+        } finally {
+            threads.shutdown();
+            threads.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        Set<Produit> inventaire = identites(stock.listerTout());
+        assertEquals(inventaire.size(), stock.taille());
+        assertEquals(inventaire, identites(stock.filtrerParPrixMin(Double.NEGATIVE_INFINITY)));
+        List<Produit> pages = new ArrayList<>();
+        String apres = null;
+        do {
+            Page<Produit> page = stock.listerPage(apres, 13);
+            pages.addAll(page.getElements());
+            apres = page.hasNext() ? page.getCurseurSuivant() : null;
+        } while (apres != null);
+        assertEquals(inventaire, identites(pages));
+    }
+
+    private static Set<Produit> identites(List<Produit> produits) {
+        Set<Produit> ensemble = Collections.newSetFromMap(new IdentityHashMap<>());
+        ensemble.addAll(produits);
+        return ensemble;
+    }
+
+    private static List<String> noms(List<Produit> produits) {
+        List<String> noms = new ArrayList<>();
+        for (Produit p : produits)
+            noms.add(p.getNom());
+        return noms;
+    }
+}
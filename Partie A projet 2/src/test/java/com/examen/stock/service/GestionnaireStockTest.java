@@ -0,0 +1,141 @@
+package com.examen.stock.service;
+
+import com.examen.stock.dao.Page;
+import com.examen.stock.dao.RapportBatch;
+import com.examen.stock.exception.StockException;
+import com.examen.stock.model.Produit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+public class GestionnaireStockTest extends TestCase {
+
+    public void testRechercheSansDistinctionDeCasse() throws StockException {
+        GestionnaireStock<Produit> stock = new GestionnaireStock<>();
+        stock.ajouter(new Produit("Clavier", 25));
+        assertEquals(25.0, stock.trouverParNom("CLAVIER").getPrix(), 0.0);
+        assertEquals("Clavier", stock.trouverParNom("clavier").getNom());
+        try {
+            stock.trouverParNom("absent");
+            fail("StockException attendue");
+        } catch (StockException e) {
+            // attendu
+        }
+    }
+
+    public void testAjoutDUnNomPresentRefuse() throws StockException {
+        GestionnaireStock<Produit> stock = new GestionnaireStock<>();
+        stock.ajouter(new Produit("Souris", 10));
+        try {
+            stock.ajouter(new Produit("souris", 12));
+            fail("IllegalArgumentException attendue");
+        } catch (IllegalArgumentException e) {
+            // attendu
+        }
+        assertEquals(1, stock.listerTout().size());
+        assertEquals(10.0, stock.trouverParNom("SOURIS").getPrix(), 0.0);
+        assertEquals(1, stock.filtrerParPrixMin(0).size());
+    }
+
+    public void testAjouterTousSignaleLesNomsPresents() {
+        GestionnaireStock<Produit> stock = new GestionnaireStock<>();
+        stock.ajouter(new Produit("A", 1));
+        RapportBatch rapport = stock.ajouterTous(List.of(new Produit("B", 2), new Produit("a", 3),
+                new Produit("C", 4), new Produit("b", 5)));
+        assertEquals(2, rapport.getLignesInserees());
+        assertEquals(0, rapport.getLignesMisesAJour());
+        assertEquals(2, rapport.getEchecs().size());
+        assertEquals(1, rapport.getEchecs().get(0).getIndexLot());
+        assertEquals(3, rapport.getEchecs().get(1).getIndexLot());
+        assertEquals(List.of("A", "B", "C"), noms(stock.listerTout()));
+    }
+
+    public void testListerToutGardeLOrdreDAjout() throws StockException {
+        GestionnaireStock<Produit> stock = new GestionnaireStock<>();
+        stock.ajouterTous(List.of(new Produit("C", 3), new Produit("A", 1), new Produit("B", 2)));
+        stock.mettreAJour(new Produit("a", 10));
+        stock.supprimer("C");
+        stock.ajouter(new Produit("C", 30));
+        assertEquals(List.of("a", "B", "C"), noms(stock.listerTout()));
+    }
+
+    public void testMettreAJourPrendLaCasseDuNouveauNom() throws StockException {
+        GestionnaireStock<Produit> stock = new GestionnaireStock<>();
+        stock.ajouterTous(List.of(new Produit("ecran", 150), new Produit("Clavier", 20)));
+        stock.mettreAJour(new Produit("ECRAN", 140));
+        assertEquals(140.0, stock.trouverParNom("Ecran").getPrix(), 0.0);
+        assertEquals(List.of("Clavier", "ECRAN"), noms(stock.listerPage(null, 10).getElements()));
+        try {
+            stock.mettreAJour(new Produit("Inconnu", 1));
+            fail("StockException attendue");
+        } catch (StockException e) {
+            // attendu
+        }
+    }
+
+    public void testSupprimerLibereLeNom() throws StockException {
+        GestionnaireStock<Produit> stock = new GestionnaireStock<>();
+        stock.ajouterTous(List.of(new Produit("A", 1), new Produit("B", 2)));
+        stock.supprimer("a");
+        try {
+            stock.supprimer("A");
+            fail("StockException attendue");
+        } catch (StockException e) {
+            // attendu
+        }
+        stock.ajouter(new Produit("A", 5));
+        assertEquals(5.0, stock.trouverParNom("a").getPrix(), 0.0);
+    }
+
+    public void testTrouverParNomsIgnoreLesAbsents() {
+        GestionnaireStock<Produit> stock = new GestionnaireStock<>();
+        stock.ajouterTous(List.of(new Produit("A", 1), new Produit("B", 2)));
+        Map<String, Produit> trouves = stock.trouverParNoms(List.of("a", "B", "Z", "b"));
+        assertEquals(2, trouves.size());
+        assertEquals(2.0, trouves.get("b").getPrix(), 0.0);
+    }
+
+    public void testPaginationParNom() throws StockException {
+        GestionnaireStock<Produit> stock = new GestionnaireStock<>();
+        stock.ajouterTous(List.of(new Produit("d", 4), new Produit("B", 2), new Produit("a", 1),
+                new Produit("C", 3), new Produit("e", 5)));
+        Page<Produit> page = stock.listerPage(null, 2);
+        assertEquals(List.of("a", "B"), noms(page.getElements()));
+        assertTrue(page.hasNext());
+        stock.supprimer("C");
+        page = stock.listerPage(page.getCurseurSuivant(), 2);
+        assertEquals(List.of("d", "e"), noms(page.getElements()));
+        assertFalse(page.hasNext());
+        assertEquals(List.of("d", "e"), noms(stock.listerPage("c", 5).getElements()));
+    }
+
+    public void testClePlieLaCasse() {
+        assertEquals(GestionnaireStock.cle("Été"), GestionnaireStock.cle("éTÉ"));
+        assertEquals("abc", GestionnaireStock.cle("abc"));
+        assertFalse(GestionnaireStock.cle("a").equals(GestionnaireStock.cle("b")));
+    }
+
+    public void testIndexPrixSuitLesEcritures() throws StockException {
+        GestionnaireStock<Produit> stock = new GestionnaireStock<>();
+        stock.ajouterTous(List.of(new Produit("A", 10), new Produit("B", 20), new Produit("C", 30)));
+        stock.mettreAJour(new Produit("A", 40));
+        stock.mettreAJour(new Produit("b", 5));
+        stock.supprimer("C");
+
+        assertEquals(List.of("b", "A"), noms(stock.filtrerParPrixMin(0)));
+        assertEquals(1, stock.filtrerParPrixEntre(30, 40).size());
+        assertEquals(1, stock.rangPrix(40));
+        assertEquals(40.0, stock.percentilePrix(100).getAsDouble(), 0.0);
+        assertEquals(2, stock.statistiques().getNombre());
+    }
+
+    private static List<String> noms(List<Produit> produits) {
+        List<String> noms = new ArrayList<>();
+        for (Produit p : produits)
+            noms.add(p.getNom());
+        return noms;
+    }
+}
@@ -0,0 +1,112 @@
+package com.examen.stock.service;
+
+import com.examen.stock.model.Produit;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class IndexPrixTest extends TestCase {
+
+    private static IndexPrix<Produit> index(Object... nomsEtPrix) {
+        IndexPrix<Produit> index = new IndexPrix<>();
+        for (int i = 0; i < nomsEtPrix.length; i += 2) {
+            String nom = (String) nomsEtPrix[i];
+            index.ajouter(nom, new Produit(nom, ((Number) nomsEtPrix[i + 1]).doubleValue()));
+        }
+        return index;
+    }
+
+    private static List<String> noms(List<Produit> produits) {
+        List<String> noms = new ArrayList<>();
+        for (Produit produit : produits)
+            noms.add(produit.getNom());
+        return noms;
+    }
+
+    public void testTranchesTrieesParPrixPuisCle() {
+        IndexPrix<Produit> index = index("d", 20, "a", 10, "c", 20, "b", 30);
+        assertEquals(List.of("a", "c", "d", "b"), noms(index.auDessusDe(Double.NEGATIVE_INFINITY)));
+        assertEquals(List.of("c", "d", "b"), noms(index.auDessusDe(20)));
+        assertEquals(List.of("c", "d"), noms(index.entre(15, 25)));
+        assertTrue(index.entre(21, 29).isEmpty());
+    }
+
+    public void testMoinsEtPlusChers() {
+        IndexPrix<Produit> index = index("a", 5, "b", 1, "c", 3);
+        assertEquals(List.of("b", "c"), noms(index.moinsChers(2)));
+        assertEquals(List.of("a", "c"), noms(index.plusChers(2)));
+        assertEquals(3, index.moinsChers(10).size());
+        assertTrue(index.plusChers(0).isEmpty());
+    }
+
+    public void testRangStrict() {
+        IndexPrix<Produit> index = index("a", 10, "b", 20, "c", 20, "d", 30);
+        assertEquals(0, index.rang(10));
+        assertEquals(1, index.rang(20));
+        assertEquals(3, index.rang(25));
+        assertEquals(4, index.rang(100));
+    }
+
+    public void testPercentileRangLePlusProche() {
+        IndexPrix<Produit> index = index("a", 10, "b", 20, "c", 30, "d", 40);
+        assertEquals(10.0, index.percentile(1).getAsDouble(), 0.0);
+        assertEquals(20.0, index.percentile(50).getAsDouble(), 0.0);
+        assertEquals(30.0, index.percentile(51).getAsDouble(), 0.0);
+        assertEquals(40.0, index.percentile(100).getAsDouble(), 0.0);
+        assertFalse(new IndexPrix<Produit>().percentile(50).isPresent());
+        try {
+            index.percentile(0);
+            fail("IllegalArgumentException attendue");
+        } catch (IllegalArgumentException e) {
+            // attendu
+        }
+    }
+
+    public void testAjouterRemplaceLaMemeCle() {
+        IndexPrix<Produit> index = index("a", 10, "b", 20);
+        index.ajouter("a", new Produit("a", 30));
+        assertEquals(2, index.taille());
+        assertEquals(List.of("b", "a"), noms(index.auDessusDe(0)));
+        index.retirer("a");
+        index.retirer("inconnue");
+        assertEquals(List.of("b"), noms(index.auDessusDe(0)));
+        index.vider();
+        assertEquals(0, index.taille());
+    }
+
+    /** Écritures et requêtes aléatoires comparées à un tri complet. */
+    public void testConformeAUnTriComplet() {
+        Random aleatoire = new Random(42);
+        IndexPrix<Produit> index = new IndexPrix<>();
+        Map<String, Produit> attendus = new HashMap<>();
+        Comparator<Produit> ordre = Comparator.comparingDouble(Produit::getPrix).thenComparing(Produit::getNom);
+        for (int i = 0; i < 5000; i++) {
+            String cle = "k" + aleatoire.nextInt(300);
+            if (aleatoire.nextInt(4) == 0) {
+                index.retirer(cle);
+                attendus.remove(cle);
+            } else {
+                Produit produit = new Produit(cle, aleatoire.nextInt(50));
+                index.ajouter(cle, produit);
+                attendus.put(cle, produit);
+            }
+            if (i % 100 != 0)
+                continue;
+            List<Produit> tries = new ArrayList<>(attendus.values());
+            tries.sort(ordre);
+            assertEquals(tries, index.auDessusDe(Double.NEGATIVE_INFINITY));
+            double seuil = aleatoire.nextInt(50);
+            int rang = 0;
+            while (rang < tries.size() && tries.get(rang).getPrix() < seuil)
+                rang++;
+            assertEquals(rang, index.rang(seuil));
+            assertEquals(tries.subList(0, Math.min(5, tries.size())), index.moinsChers(5));
+        }
+    }
+}
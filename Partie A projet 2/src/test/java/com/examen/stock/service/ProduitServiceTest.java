@@ -0,0 +1,83 @@
+package com.examen.stock.service;
+
+import com.examen.stock.dao.ProduitDaoImpl;
+import com.examen.stock.exception.ConflitVersionException;
+import com.examen.stock.exception.StockException;
+import com.examen.stock.model.Produit;
+import com.examen.stock.util.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+public class ProduitServiceTest extends TestCase {
+    private final ProduitDaoImpl dao = new ProduitDaoImpl();
+
+    @Override
+    protected void setUp() throws SQLException, StockException {
+        creerTable();
+        dao.create(new Produit("Clavier", 100));
+    }
+
+    /** Un écrivain concurrent passe entre la lecture et l'écriture : le calcul est refait sur le prix relu. */
+    public void testAjusterPrixRelitApresUnConflit() throws StockException {
+        ProduitService service = new ProduitService(dao, 3, 1);
+        AtomicInteger calculs = new AtomicInteger();
+        double ecrit = service.ajusterPrix("Clavier", prix -> {
+            if (calculs.incrementAndGet() == 1)
+                concurrent(200);
+            return prix / 2;
+        });
+        assertEquals(2, calculs.get());
+        assertEquals(100.0, ecrit, 0.0);
+        Produit lu = dao.readByName("Clavier");
+        assertEquals(100.0, lu.getPrix(), 0.0);
+        assertEquals(2, lu.getVersion());
+    }
+
+    public void testAjusterPrixAbandonneApresLesTentatives() throws StockException {
+        ProduitService service = new ProduitService(dao, 2, 1);
+        AtomicInteger calculs = new AtomicInteger();
+        try {
+            service.ajusterPrix("Clavier", prix -> {
+                concurrent(100 + calculs.incrementAndGet());
+                return prix / 2;
+            });
+            fail("ConflitVersionException attendue");
+        } catch (ConflitVersionException e) {
+            assertEquals(2, calculs.get());
+        }
+        assertEquals(102.0, dao.readByName("Clavier").getPrix(), 0.0);
+    }
+
+    /** La modification de prix du service passe par l'écriture versionnée. */
+    public void testModifierPrixAvanceLaVersion() throws StockException {
+        ProduitService service = new ProduitService(dao);
+        service.modifierPrix("Clavier", 90);
+        service.modifierPrix("clavier", 80);
+        Produit lu = dao.readByName("Clavier");
+        assertEquals(80.0, lu.getPrix(), 0.0);
+        assertEquals(2, lu.getVersion());
+    }
+
+    /** Écriture d'un autre client, sans contrôle de version. */
+    private void concurrent(double prix) {
+        try {
+            dao.modifierPrix("Clavier", prix);
+        } catch (StockException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Table produits vide sur la base de test (H2 en mode MySQL, voir le pom). */
+    private static void creerTable() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS produits");
+            stmt.execute("CREATE TABLE produits (id INT AUTO_INCREMENT PRIMARY KEY, nom VARCHAR(100) NOT NULL UNIQUE, "
+                    + "prix DOUBLE NOT NULL, catalogue_id INT, version INT NOT NULL DEFAULT 0)");
+        }
+    }
+}
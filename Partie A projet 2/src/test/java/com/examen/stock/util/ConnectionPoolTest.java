@@ -0,0 +1,135 @@
+package com.examen.stock.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+
+import junit.framework.TestCase;
+
+public class ConnectionPoolTest extends TestCase {
+    private ConnectionPool pool;
+
+    private ConnectionPool ouvrir(int tailleMax, long delaiAcquisitionMs, long seuilFuiteMs) {
+        pool = new ConnectionPool("jdbc:h2:mem:" + getName(), "sa", "", 0, tailleMax, 0, delaiAcquisitionMs,
+                seuilFuiteMs, false, 10);
+        return pool;
+    }
+
+    @Override
+    protected void tearDown() {
+        if (pool != null)
+            pool.close();
+    }
+
+    /** Le prochain emprunteur retrouve la connexion physique dans son état d'origine. */
+    public void testRestitutionRemetLaSessionAZero() throws SQLException {
+        ouvrir(1, 1000, 0);
+        int isolationInitiale;
+        try (Connection conn = pool.emprunter(); Statement stmt = conn.createStatement()) {
+            isolationInitiale = conn.getTransactionIsolation();
+            stmt.execute("CREATE TABLE t (n INT)");
+        }
+        try (Connection conn = pool.emprunter(); Statement stmt = conn.createStatement()) {
+            // H2 valide la transaction en cours quand l'isolation change : changée d'abord
+            conn.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+            conn.setReadOnly(true);
+            conn.setAutoCommit(false);
+            stmt.executeUpdate("INSERT INTO t VALUES (1)");
+            // Rendue sans commit
+        }
+        try (Connection conn = pool.emprunter();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM t")) {
+            assertTrue(conn.getAutoCommit());
+            assertFalse(conn.isReadOnly());
+            assertEquals(isolationInitiale, conn.getTransactionIsolation());
+            rs.next();
+            assertEquals("transaction non validée annulée", 0, rs.getInt(1));
+        }
+        assertEquals(1, pool.getTotal());
+        assertEquals(3, pool.getNbEmprunts());
+    }
+
+    public void testPoigneeRestitueeInutilisable() throws SQLException {
+        ouvrir(1, 1000, 0);
+        Connection conn = pool.emprunter();
+        assertEquals(1, pool.getActives());
+        conn.close();
+        conn.close(); // sans effet
+        assertEquals(0, pool.getActives());
+        assertEquals(1, pool.getInactives());
+        assertTrue(conn.isClosed());
+        try {
+            conn.createStatement();
+            fail("SQLException attendue");
+        } catch (SQLException e) {
+            // attendu : la connexion physique appartient de nouveau au pool
+        }
+        try (Connection suivante = pool.emprunter()) {
+            assertFalse(suivante.isClosed());
+        }
+    }
+
+    public void testDelaiDAcquisitionDepasse() throws SQLException {
+        ouvrir(1, 50, 0);
+        try (Connection occupee = pool.emprunter()) {
+            long debut = System.nanoTime();
+            try {
+                pool.emprunter();
+                fail("SQLTimeoutException attendue");
+            } catch (SQLTimeoutException e) {
+                assertTrue(System.nanoTime() - debut >= 40_000_000L);
+            }
+        }
+        assertEquals(0, pool.getEnAttente());
+        pool.emprunter().close();
+    }
+
+    /** Une connexion gardée au-delà du seuil est signalée une fois par emprunt. */
+    public void testFuiteSignaleeUneFoisParEmprunt() throws Exception {
+        ouvrir(2, 1000, 1);
+        Connection gardee = pool.emprunter();
+        Thread.sleep(20);
+        pool.entretenir();
+        pool.entretenir();
+        assertEquals(1, pool.getNbFuites());
+
+        gardee.close();
+        pool.entretenir();
+        assertEquals(1, pool.getNbFuites());
+
+        gardee = pool.emprunter();
+        Thread.sleep(20);
+        pool.entretenir();
+        assertEquals(2, pool.getNbFuites());
+        gardee.close();
+    }
+
+    /** Une requête fermée est reprise du cache ; une requête oubliée est libérée à la restitution. */
+    public void testCacheDeRequetes() throws SQLException {
+        ouvrir(1, 1000, 0);
+        String sql = "SELECT 1";
+        try (Connection conn = pool.emprunter()) {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.executeQuery().close();
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(sql);
+                    PreparedStatement imbriquee = conn.prepareStatement(sql)) {
+                assertNotSame(pstmt, imbriquee);
+                imbriquee.executeQuery().close();
+            }
+            conn.prepareStatement(sql); // jamais fermée
+        }
+        assertEquals(2, pool.getCacheSucces());
+        assertEquals(2, pool.getCacheEchecs());
+
+        try (Connection conn = pool.emprunter(); PreparedStatement pstmt = conn.prepareStatement(sql);
+                ResultSet rs = pstmt.executeQuery()) {
+            assertTrue(rs.next());
+        }
+        assertEquals(3, pool.getCacheSucces());
+    }
+}